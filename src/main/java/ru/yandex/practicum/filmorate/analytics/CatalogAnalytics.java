@@ -0,0 +1,261 @@
+package ru.yandex.practicum.filmorate.analytics;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.stats.HyperLogLog;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catalog aggregates kept up to date by applying each film and like change as a delta, so reports never scan
+ * {@code films}, {@code film_genres} or {@code film_likes}. The genres, rating, year, duration and like count each
+ * film was last counted with are kept too, so an update or a like is applied without reading the stored film.
+ * Catalog aggregates can be recomputed from the full film list by {@link #rebuild}; active users are only known
+ * from the write paths and are kept as one distinct-count sketch per day for the last {@code activeDays} days.
+ */
+public class CatalogAnalytics {
+    private final int activeDays;
+    private final int hllPrecision;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<LocalDate, HyperLogLog> activeUsers = new TreeMap<>();
+    private Rollup rollup = new Rollup();
+    private volatile boolean rebuilt;
+
+    public CatalogAnalytics(int activeDays, int hllPrecision, Clock clock) {
+        this.activeDays = activeDays;
+        this.hllPrecision = hllPrecision;
+        this.clock = clock;
+    }
+
+    public record YearDuration(int year, long films, double averageDuration) {
+    }
+
+    public record DayUsers(LocalDate date, long users) {
+    }
+
+    public void filmAdded(Film film) {
+        lock.lock();
+        try {
+            rollup.add(film);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param updated the film as stored after the update, with the likes the update left in place
+     */
+    public void filmUpdated(Film updated) {
+        lock.lock();
+        try {
+            rollup.remove(updated.getId(), null);
+            rollup.add(updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void filmDeleted(Film film) {
+        lock.lock();
+        try {
+            rollup.remove(film.getId(), film);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void likeChanged(Film film, long userId, int delta) {
+        lock.lock();
+        try {
+            Counted counted = rollup.films.get(film.getId());
+            if (counted != null) {
+                counted.likes += delta;
+            }
+            for (long genreId : counted != null ? counted.genreIds : genreIds(film)) {
+                rollup.likesByGenre.merge(genreId, (long) delta, Long::sum);
+            }
+            userActive(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void userActive(long userId) {
+        LocalDate today = LocalDate.now(clock);
+        lock.lock();
+        try {
+            activeUsers.computeIfAbsent(today, date -> new HyperLogLog(hllPrecision)).add(userId);
+            while (activeUsers.size() > activeDays) {
+                activeUsers.pollFirstEntry();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the catalog aggregates with ones computed from {@code films}. Changes applied while the films were
+     * being read may be counted twice or not at all until the next rebuild.
+     */
+    public void rebuild(List<Film> films) {
+        Rollup fresh = new Rollup();
+        for (Film film : films) {
+            fresh.add(film);
+        }
+        lock.lock();
+        try {
+            rollup = fresh;
+            rebuilt = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether the aggregates have been computed from the stored films at least once.
+     */
+    public boolean isRebuilt() {
+        return rebuilt;
+    }
+
+    public Map<Long, Long> likesByGenre() {
+        lock.lock();
+        try {
+            return positive(rollup.likesByGenre);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<Long, Long> filmsByMpa() {
+        lock.lock();
+        try {
+            return positive(rollup.filmsByMpa);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<YearDuration> durationByYear() {
+        lock.lock();
+        try {
+            return rollup.durationByYear.entrySet().stream()
+                    .filter(e -> e.getValue()[0] > 0)
+                    .map(e -> new YearDuration(e.getKey(), e.getValue()[0],
+                            (double) e.getValue()[1] / e.getValue()[0]))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Distinct users who liked, unliked or added a friend on each of the last {@code days} days, newest first.
+     */
+    public List<DayUsers> activeUsers(int days) {
+        lock.lock();
+        try {
+            NavigableMap<LocalDate, HyperLogLog> recent = activeUsers.descendingMap()
+                    .headMap(LocalDate.now(clock).minusDays(days), false);
+            return recent.entrySet().stream()
+                    .map(e -> new DayUsers(e.getKey(), e.getValue().estimate()))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int activeDays() {
+        return activeDays;
+    }
+
+    private static long[] genreIds(Film film) {
+        return film.getGenres() == null ? new long[0] : film.getGenres().stream()
+                .map(Genre::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private static Map<Long, Long> positive(Map<Long, Long> counts) {
+        Map<Long, Long> result = new TreeMap<>();
+        counts.forEach((key, count) -> {
+            if (count > 0) {
+                result.put(key, count);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * What one film contributes to the aggregates.
+     */
+    private static final class Counted {
+        final long[] genreIds;
+        final Long mpaId;
+        final Integer year;
+        final int duration;
+        int likes;
+
+        Counted(Film film) {
+            genreIds = genreIds(film);
+            mpaId = film.getMpa() == null ? null : film.getMpa().getId();
+            year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+            duration = film.getDuration();
+            likes = film.getLikesCount();
+        }
+    }
+
+    private static final class Rollup {
+        final Map<Long, Long> likesByGenre = new HashMap<>();
+        final Map<Long, Long> filmsByMpa = new HashMap<>();
+        // year -> {films, total duration}
+        final TreeMap<Integer, long[]> durationByYear = new TreeMap<>();
+        final Map<Long, Counted> films = new HashMap<>();
+
+        void add(Film film) {
+            Counted counted = new Counted(film);
+            if (film.getId() != null) {
+                films.put(film.getId(), counted);
+            }
+            apply(counted, 1);
+        }
+
+        /**
+         * @param fallback subtracted instead when the film has not been counted, may be {@code null}
+         */
+        void remove(Long filmId, Film fallback) {
+            Counted counted = filmId == null ? null : films.remove(filmId);
+            if (counted == null && fallback != null) {
+                counted = new Counted(fallback);
+            }
+            if (counted != null) {
+                apply(counted, -1);
+            }
+        }
+
+        private void apply(Counted film, int sign) {
+            for (long genreId : film.genreIds) {
+                likesByGenre.merge(genreId, (long) sign * film.likes, Long::sum);
+            }
+            if (film.mpaId != null) {
+                filmsByMpa.merge(film.mpaId, (long) sign, Long::sum);
+            }
+            if (film.year != null) {
+                long[] year = durationByYear.computeIfAbsent(film.year, y -> new long[2]);
+                year[0] += sign;
+                year[1] += (long) sign * film.duration;
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.GenreChangeEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+import ru.yandex.practicum.filmorate.storage.InClause;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-process caches of instances that share one database coherent. Every film, user and genre change
+ * event raised here is also written to {@code cache_changes}, inside the writer's transaction where it has one.
+ * Each instance polls the table by primary key for rows written by the others and publishes them again as local
+ * events, so the listeners that invalidate caches handle remote writes exactly like their own.
+ * <p>
+ * An id is taken when a row is inserted but only becomes visible when its transaction commits, so an id skipped
+ * by a poll is looked up again by the following polls for {@code gapTimeout}. Changes of the same rows are
+ * serialized by their transactions and are therefore replayed in order. A change is applied here one poll after
+ * its commit; an instance that could not poll for {@code maxStaleness} reports readiness REFUSING_TRAFFIC, and
+ * once it can again it resets every cache with {@link CachesResetEvent} before it accepts traffic.
+ * <p>
+ * Polls run on a thread of their own, so scheduled jobs that take long cannot delay them; {@link #isCurrent()} is
+ * computed from the last successful poll and stays meaningful even while a poll hangs.
+ */
+@Slf4j
+public class CacheCoherence implements InitializingBean, AutoCloseable {
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long maxStalenessNanos;
+    private final Duration retention;
+    private final String node = UUID.randomUUID().toString();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cache-coherence-poller").daemon().factory());
+    private final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    // Skipped id -> when it was first missed
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private long highest;
+    private boolean stale;
+    private volatile long lastPolled = System.nanoTime();
+
+    public CacheCoherence(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher, Duration pollInterval,
+                          int batchSize, Duration gapTimeout, Duration maxStaleness, Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.retention = retention;
+    }
+
+    public enum Entity { FILM, USER, GENRE }
+
+    public record Change(long id, String node, Entity entity, String type, long entityId, Long relatedId) {
+    }
+
+    /**
+     * Caches start empty, so changes recorded before this instance started are not replayed.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        highest = maxId();
+        poller.scheduleWithFixedDelay(this::pollQuietly, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    public String node() {
+        return node;
+    }
+
+    /**
+     * Time since the table was last polled successfully.
+     */
+    public Duration lag() {
+        return Duration.ofNanos(System.nanoTime() - lastPolled);
+    }
+
+    /**
+     * @return {@code false} when the table has not been polled successfully for longer than {@code maxStaleness}
+     */
+    public boolean isCurrent() {
+        return System.nanoTime() - lastPolled <= maxStalenessNanos;
+    }
+
+    @EventListener
+    public void onFilmChange(FilmChangeEvent event) {
+        record(Entity.FILM, event.getType().name(), event.getFilmId(), event.getUserId());
+    }
+
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        record(Entity.USER, event.getType().name(), event.getUserId(), event.getFriendId());
+    }
+
+    @EventListener
+    public void onGenreChange(GenreChangeEvent event) {
+        record(Entity.GENRE, "UPDATED", event.getGenreId(), null);
+    }
+
+    public synchronized void poll() {
+        List<Change> changes;
+        try {
+            if (stale) {
+                catchUp();
+                return;
+            }
+            changes = new ArrayList<>(jdbcTemplate.query("SELECT * FROM cache_changes WHERE id > ? ORDER BY id LIMIT ?",
+                    this::mapRowToChange, highest, batchSize));
+            if (!gaps.isEmpty()) {
+                changes.addAll(lookUpGaps());
+            }
+        } catch (DataAccessException e) {
+            if (!stale && System.nanoTime() - lastPolled > maxStalenessNanos) {
+                stale = true;
+                log.warn("Cache changes not polled for {} ms, refusing traffic: {}", lag().toMillis(), e.getMessage());
+                AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+            } else {
+                log.debug("Polling cache changes failed: {}", e.getMessage());
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        lastPolled = now;
+        for (Change change : changes) {
+            gaps.remove(change.id());
+            if (change.id() > highest) {
+                // Only the last batchSize ids of a longer jump, such as one after a sequence restart, are tracked
+                for (long id = Math.max(highest + 1, change.id() - batchSize); id < change.id(); id++) {
+                    gaps.put(id, now);
+                }
+                highest = change.id();
+            }
+            if (!node.equals(change.node())) {
+                replay(change);
+            }
+        }
+        gaps.values().removeIf(missedAt -> now - missedAt > gapTimeoutNanos);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.cache.coherence.prune-interval:PT1M}")
+    public void prune() {
+        int pruned = jdbcTemplate.update("DELETE FROM cache_changes WHERE created_at < DATEADD('MILLISECOND', ?, " +
+                "CURRENT_TIMESTAMP)", -retention.toMillis());
+        if (pruned > 0) {
+            log.debug("Pruned {} cache changes older than {}", pruned, retention);
+        }
+    }
+
+    // An exception escaping a task would cancel its later runs
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Polling cache changes failed: {}", e.getMessage());
+        }
+    }
+
+    private void record(Entity entity, String type, Long entityId, Long relatedId) {
+        if (replaying.get()) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO cache_changes (node_id, entity, type, entity_id, related_id) " +
+                "VALUES (?, ?, ?, ?, ?)", node, entity.name(), type, entityId, relatedId);
+    }
+
+    // Changes missed while polling failed may already be pruned, so everything is reloaded instead
+    private void catchUp() {
+        highest = maxId();
+        gaps.clear();
+        lastPolled = System.nanoTime();
+        stale = false;
+        eventPublisher.publishEvent(new CachesResetEvent());
+        log.info("Cache changes polled again, local caches reset");
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    private void replay(Change change) {
+        Object event = switch (change.entity()) {
+            case FILM -> new FilmChangeEvent(FilmChangeEvent.Type.valueOf(change.type()), change.entityId(),
+                    change.relatedId());
+            case USER -> new UserChangeEvent(UserChangeEvent.Type.valueOf(change.type()), change.entityId(),
+                    change.relatedId());
+            case GENRE -> new GenreChangeEvent(change.entityId());
+        };
+        replaying.set(Boolean.TRUE);
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Replaying cache change {} failed: {}", change.id(), e.getMessage());
+        } finally {
+            replaying.set(Boolean.FALSE);
+        }
+    }
+
+    private List<Change> lookUpGaps() {
+        List<Change> found = new ArrayList<>();
+        for (List<Long> batch : InClause.batches(List.copyOf(gaps.keySet()))) {
+            found.addAll(jdbcTemplate.query("SELECT * FROM cache_changes WHERE id IN (" +
+                    InClause.placeholders(batch.size()) + ")", this::mapRowToChange, InClause.args(batch)));
+        }
+        return found;
+    }
+
+    private long maxId() {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cache_changes", Long.class);
+        return id == null ? 0 : id;
+    }
+
+    private Change mapRowToChange(ResultSet rs, int rowNum) throws SQLException {
+        return new Change(rs.getLong("id"), rs.getString("node_id"), Entity.valueOf(rs.getString("entity")),
+                rs.getString("type"), rs.getLong("entity_id"), rs.getObject("related_id", Long.class));
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.GenreChangeEvent;
+import ru.yandex.practicum.filmorate.event.PopularFilmsRefreshedEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process version counters for cacheable read resources. Counters start at the boot instant, so ETags issued by
+ * a previous run never match. Film payloads embed genre names and like sets, so they also depend on the catalog
+ * version, which is bumped by genre changes and user deletions. Only films changed since boot have a version of
+ * their own, so lookups of arbitrary ids allocate nothing; a deleted film's version is dropped and the catalog
+ * bumped instead, so the tag of the unchanged state is never issued again for it.
+ */
+@Component
+public class ResourceVersions {
+    private static final Version UNCHANGED = new Version(0, System.currentTimeMillis());
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentMap<Long, Version> films = new ConcurrentHashMap<>();
+    private volatile Version catalog = Version.initial();
+    private volatile Version popular = Version.initial();
+    private volatile Version genres = Version.initial();
+    private volatile Version mpa = Version.initial();
+    private volatile Tag genresTag = tag("g", genres);
+    private volatile Tag mpaTag = tag("m", mpa);
+
+    public Tag film(Long id) {
+        Version film = films.getOrDefault(id, UNCHANGED);
+        Version catalog = this.catalog;
+        return new Tag("\"f" + id + "-" + epoch + "-" + film.value + "." + catalog.value + "\"",
+                Math.max(film.lastModified, catalog.lastModified));
+    }
+
+    int trackedFilms() {
+        return films.size();
+    }
+
+    public Tag popular(int count) {
+        Version popular = this.popular;
+        Version catalog = this.catalog;
+        return new Tag("\"p" + count + "-" + epoch + "-" + popular.value + "." + catalog.value + "\"",
+                Math.max(popular.lastModified, catalog.lastModified));
+    }
+
+    public Tag genres() {
+        return genresTag;
+    }
+
+    public Tag mpa() {
+        return mpaTag;
+    }
+
+    @EventListener
+    public void onFilmChange(FilmChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED -> {
+            }
+            case DELETED -> {
+                films.remove(event.getFilmId());
+                synchronized (this) {
+                    catalog = catalog.next();
+                }
+            }
+            default -> films.compute(event.getFilmId(), (id, version) -> (version == null ? UNCHANGED : version).next());
+        }
+        synchronized (this) {
+            popular = popular.next();
+        }
+    }
+
+    @EventListener
+    public void onPopularRefreshed(PopularFilmsRefreshedEvent event) {
+        synchronized (this) {
+            popular = popular.next();
+        }
+    }
+
+    @EventListener
+    public void onGenreChange(GenreChangeEvent event) {
+        synchronized (this) {
+            genres = genres.next();
+            genresTag = tag("g", genres);
+            catalog = catalog.next();
+        }
+    }
+
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        if (event.getType() == UserChangeEvent.Type.DELETED) {
+            synchronized (this) {
+                catalog = catalog.next();
+            }
+        }
+    }
+
+    @EventListener
+    public void onCachesReset(CachesResetEvent event) {
+        synchronized (this) {
+            popular = popular.next();
+            genres = genres.next();
+            genresTag = tag("g", genres);
+            mpa = mpa.next();
+            mpaTag = tag("m", mpa);
+            catalog = catalog.next();
+        }
+    }
+
+    private Tag tag(String prefix, Version version) {
+        return new Tag("\"" + prefix + "-" + epoch + "-" + version.value + "\"", version.lastModified);
+    }
+
+    public record Tag(String etag, long lastModified) {
+    }
+
+    private record Version(long value, long lastModified) {
+
+        static Version initial() {
+            return new Version(0, System.currentTimeMillis());
+        }
+
+        Version next() {
+            return new Version(value + 1, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps JSON and gzip encodings of hot read-only payloads, keyed by resource and tagged with the ETag of the
+ * version they were built from. An entry whose tag no longer matches {@link ResourceVersions} is rebuilt on the
+ * next request, so writes invalidate it without extra bookkeeping.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseBytesCache {
+    private static final int MIN_GZIP_SIZE = 256;
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Answers a conditional request with 304 or writes the cached bytes of {@code key}, loading and encoding the
+     * payload first if the cached entry is missing or older than {@code tag}. A {@code null} key disables caching.
+     */
+    public void send(String key, ResourceVersions.Tag tag, Supplier<?> loader,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (new ServletWebRequest(request, response).checkNotModified(tag.etag(), tag.lastModified())) {
+            return;
+        }
+        Entry entry = key == null ? null : entries.get(key);
+        if (entry == null || !entry.etag.equals(tag.etag())) {
+            entry = encode(tag.etag(), loader.get());
+            if (key != null) {
+                entries.put(key, entry);
+            }
+        }
+        write(entry, request, response);
+    }
+
+    private Entry encode(String etag, Object payload) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            return new Entry(etag, json, json.length < MIN_GZIP_SIZE ? null : gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    private static void write(Entry entry, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        byte[] body = entry.json;
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (entry.gzip != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = entry.gzip;
+            }
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private record Entry(String etag, byte[] json, byte[] gzip) {
+    }
+}
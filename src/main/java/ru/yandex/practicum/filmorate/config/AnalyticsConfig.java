@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.analytics.CatalogAnalytics;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(AnalyticsProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsConfig {
+
+    @Bean
+    public CatalogAnalytics catalogAnalytics(AnalyticsProperties properties) {
+        return new CatalogAnalytics(properties.getActiveDays(), properties.getHllPrecision(), Clock.systemUTC());
+    }
+
+    /**
+     * Part of the readiness group: down until the first rebuild from the stored films has finished.
+     */
+    @Bean
+    public HealthIndicator analyticsHealthIndicator(CatalogAnalytics catalogAnalytics) {
+        return () -> catalogAnalytics.isRebuilt() ? Health.up().build() : Health.outOfService().build();
+    }
+}
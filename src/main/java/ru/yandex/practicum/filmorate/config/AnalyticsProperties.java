@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.analytics")
+public class AnalyticsProperties {
+    private boolean enabled = true;
+    private int activeDays = 30;
+    private int hllPrecision = 12;
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.cache.CacheCoherence;
+
+@Configuration
+@EnableConfigurationProperties(CacheCoherenceProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.cache.coherence", name = "enabled", havingValue = "true")
+public class CacheCoherenceConfig {
+
+    @Bean
+    public CacheCoherence cacheCoherence(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                         CacheCoherenceProperties properties) {
+        return new CacheCoherence(jdbcTemplate, eventPublisher, properties.getPollInterval(),
+                properties.getBatchSize(), properties.getGapTimeout(), properties.getMaxStaleness(),
+                properties.getRetention());
+    }
+
+    /**
+     * Part of the readiness group: down while the cache changes have not been polled for {@code max-staleness},
+     * including when a poll hangs and never gets to report it.
+     */
+    @Bean
+    public HealthIndicator cacheCoherenceHealthIndicator(CacheCoherence cacheCoherence) {
+        return () -> (cacheCoherence.isCurrent() ? Health.up() : Health.outOfService())
+                .withDetail("lag", cacheCoherence.lag().toString())
+                .build();
+    }
+}
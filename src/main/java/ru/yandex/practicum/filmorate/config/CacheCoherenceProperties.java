@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.cache.coherence")
+public class CacheCoherenceProperties {
+    /**
+     * Several instances share the database: changes are recorded in {@code cache_changes} and changes recorded by
+     * the other instances invalidate the local caches.
+     */
+    private boolean enabled;
+    private Duration pollInterval = Duration.ofMillis(500);
+    private int batchSize = 1000;
+    /**
+     * How long an id skipped by a poll is looked for, in case its transaction commits late, before it is taken
+     * for a rollback.
+     */
+    private Duration gapTimeout = Duration.ofMinutes(1);
+    /**
+     * Readiness goes down when the table could not be polled for this long.
+     */
+    private Duration maxStaleness = Duration.ofSeconds(30);
+    private Duration retention = Duration.ofMinutes(10);
+    private Duration pruneInterval = Duration.ofMinutes(1);
+}
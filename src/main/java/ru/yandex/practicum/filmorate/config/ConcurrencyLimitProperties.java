@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.yandex.practicum.filmorate.limit.EndpointClass;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.limits")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    private Duration retryAfter = Duration.ofSeconds(1);
+    /**
+     * Full scans of films and users; the maximum stays below the connection pool size so they always leave
+     * connections for the other classes.
+     */
+    private Limit list = new Limit(2, 1, 4, Duration.ofMillis(500), 0.9, 20, Duration.ofSeconds(1));
+    private Limit popular = new Limit(10, 2, 50, Duration.ofMillis(200), 0.9, 100, Duration.ofMillis(500));
+    private Limit read = new Limit(20, 4, 200, Duration.ofMillis(50), 0.9, 200, Duration.ofMillis(200));
+    private Limit write = new Limit(10, 2, 50, Duration.ofMillis(100), 0.9, 100, Duration.ofMillis(500));
+
+    public Limit limit(EndpointClass endpointClass) {
+        return switch (endpointClass) {
+            case LIST -> list;
+            case POPULAR -> popular;
+            case READ -> read;
+            case WRITE -> write;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        /**
+         * Requests slower than this shrink the limit.
+         */
+        private Duration latencyThreshold;
+        private double backoffRatio;
+        private int queueCapacity;
+        private Duration maxWait;
+    }
+}
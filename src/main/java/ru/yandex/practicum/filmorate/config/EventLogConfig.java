@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.eventlog.EventLog;
+
+@Configuration
+@EnableConfigurationProperties(EventLogProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.eventlog", name = "enabled", havingValue = "true")
+public class EventLogConfig {
+
+    @Bean
+    public EventLog eventLog(EventLogProperties properties) {
+        return EventLog.open(properties.getDirectory(), properties.getSegmentSize().toBytes(), properties.isFsync());
+    }
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.eventlog")
+public class EventLogProperties {
+    /**
+     * Likes and friendships are acknowledged once appended to the log and reach the storages asynchronously.
+     */
+    private boolean enabled;
+    private Path directory = Path.of("eventlog");
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    /**
+     * Whether appends wait for the group-commit fsync; without it a crash may lose the last acknowledged events.
+     */
+    private boolean fsync = true;
+}
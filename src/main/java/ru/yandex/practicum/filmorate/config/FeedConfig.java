@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.feed.FilmChangeFeed;
+
+@Configuration
+@EnableConfigurationProperties(FeedProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.feed", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FeedConfig {
+
+    @Bean
+    public FilmChangeFeed filmChangeFeed(FeedProperties properties) {
+        return new FilmChangeFeed(properties.getBufferSize(), properties.getTimeout());
+    }
+}
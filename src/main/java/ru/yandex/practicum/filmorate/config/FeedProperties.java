@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.feed")
+public class FeedProperties {
+    private boolean enabled = true;
+    /**
+     * Films with undelivered changes per subscriber before its changes are dropped for a single reset event.
+     */
+    private int bufferSize = 256;
+    private Duration timeout = Duration.ofMinutes(30);
+    private Duration heartbeat = Duration.ofSeconds(15);
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+@Configuration
+@EnableConfigurationProperties(InMemorySnapshotProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.storage.snapshot", name = "enabled", havingValue = "true")
+public class InMemorySnapshotConfig {
+
+    @Bean
+    @Lazy(false)
+    public InMemorySnapshotter inMemorySnapshotter(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage,
+                                                   InMemorySnapshotProperties properties) {
+        return new InMemorySnapshotter(filmStorage, userStorage, properties.getDirectory());
+    }
+}
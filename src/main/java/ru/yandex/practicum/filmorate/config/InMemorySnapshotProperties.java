@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.storage.snapshot")
+public class InMemorySnapshotProperties {
+    private boolean enabled;
+    private Path directory = Path.of("snapshots");
+    private Duration interval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Restores the in-memory storages on startup and writes their snapshots on a fixed delay and on shutdown.
+ * Snapshots walk the storages concurrently with writers, so each one reflects every entity as of some moment
+ * during the pass rather than a single instant.
+ */
+@Slf4j
+public class InMemorySnapshotter implements InitializingBean, DisposableBean {
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final Path filmsFile;
+    private final Path usersFile;
+
+    public InMemorySnapshotter(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage, Path directory) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.filmsFile = directory.resolve("films.snapshot");
+        this.usersFile = directory.resolve("users.snapshot");
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Files.createDirectories(filmsFile.getParent());
+        long started = System.nanoTime();
+        boolean films = filmStorage.loadSnapshot(filmsFile);
+        boolean users = userStorage.loadSnapshot(usersFile);
+        if (films || users) {
+            log.info("Loaded {} films and {} users from snapshots in {} ms", filmStorage.size(), userStorage.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.storage.snapshot.interval:PT1M}",
+            initialDelayString = "${filmorate.storage.snapshot.interval:PT1M}")
+    public synchronized void save() throws IOException {
+        long started = System.nanoTime();
+        filmStorage.saveSnapshot(filmsFile);
+        userStorage.saveSnapshot(usersFile);
+        log.debug("Saved snapshots of {} films and {} users in {} ms", filmStorage.size(), userStorage.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        save();
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
+
+@Configuration
+@EnableConfigurationProperties(PurgeProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.purge", name = "enabled", havingValue = "true")
+public class PurgeConfig {
+
+    @Bean
+    @Lazy(false)
+    public PurgeWorker purgeWorker(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher, PurgeProperties properties) {
+        return new PurgeWorker(jdbcTemplate, new TransactionTemplate(transactionManager), eventPublisher,
+                properties.getChunkSize());
+    }
+}
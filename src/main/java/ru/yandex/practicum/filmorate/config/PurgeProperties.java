@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.purge")
+public class PurgeProperties {
+    /**
+     * Films and users in the main database are tombstoned on delete and their dependent rows purged in the
+     * background instead of by one cascading delete.
+     */
+    private boolean enabled;
+    private int chunkSize = 1000;
+    /**
+     * Pause between chunks, which bounds the purge rate.
+     */
+    private Duration delay = Duration.ofMillis(100);
+}
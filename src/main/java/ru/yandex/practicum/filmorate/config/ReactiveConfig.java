@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.storage.film.R2dbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ReactiveFilmStorage;
+
+/**
+ * R2DBC access for the film API of a reactive web application on Netty. The pool is not exposed as a
+ * {@code ConnectionFactory} bean and the R2DBC auto-configuration is excluded, because either would switch off the
+ * JDBC {@code DataSource} or transaction manager that the rest of the application keeps using.
+ */
+@Configuration
+@EnableConfigurationProperties(ReactiveProperties.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements DisposableBean {
+    private ConnectionPool connectionPool;
+    private Scheduler scheduler;
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ReactiveFilmStorage reactiveFilmStorage(ReactiveProperties properties, DataSourceProperties dataSource,
+                                                   @Value("${filmorate.purge.enabled:false}") boolean tombstones) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSource.determineUsername());
+        if (dataSource.determinePassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, dataSource.determinePassword());
+        }
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .initialSize(1)
+                .maxSize(properties.getPoolSize())
+                .build());
+        scheduler = properties.isBlockingDriver()
+                ? Schedulers.newBoundedElastic(properties.getPoolSize(), Integer.MAX_VALUE, "r2dbc")
+                : Schedulers.immediate();
+        return new R2dbcFilmStorage(DatabaseClient.create(connectionPool),
+                TransactionalOperator.create(new R2dbcTransactionManager(connectionPool)), properties.getPageSize(),
+                scheduler, tombstones);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+}
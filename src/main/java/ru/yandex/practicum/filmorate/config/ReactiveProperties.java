@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.reactive")
+public class ReactiveProperties {
+    /**
+     * R2DBC URL of the database behind {@code spring.datasource.url}, with the same credentials.
+     */
+    private String url = "r2dbc:h2:file:///./db/filmorate";
+    private int poolSize = 10;
+    /**
+     * Films read and hydrated per query when streaming film lists, at most 512.
+     */
+    private int pageSize = 512;
+    /**
+     * The driver runs statements on the calling thread, as r2dbc-h2 does, so they are moved to {@code poolSize}
+     * worker threads to keep the server's event loops free. Turn off for a non-blocking driver.
+     */
+    private boolean blockingDriver = true;
+}
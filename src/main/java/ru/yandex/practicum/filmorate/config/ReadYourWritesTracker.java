@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.event.EventListener;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.GenreChangeEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers recently written entities, so reads of them keep going to the primary until replicas catch up.
+ */
+public class ReadYourWritesTracker {
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long stickinessMillis;
+    private final Clock clock;
+    private final ConcurrentMap<String, Long> deadlines = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration stickiness, Clock clock) {
+        this.stickinessMillis = stickiness.toMillis();
+        this.clock = clock;
+    }
+
+    public boolean isSticky(String key) {
+        Long deadline = deadlines.get(key);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - clock.millis() > 0) {
+            return true;
+        }
+        deadlines.remove(key, deadline);
+        return false;
+    }
+
+    public void markWritten(String key) {
+        if (stickinessMillis <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        if (deadlines.size() > CLEANUP_THRESHOLD) {
+            deadlines.values().removeIf(deadline -> deadline - now <= 0);
+        }
+        deadlines.put(key, now + stickinessMillis);
+    }
+
+    @EventListener
+    public void onFilmChange(FilmChangeEvent event) {
+        markWritten("film:" + event.getFilmId());
+        markWritten("films");
+        if (event.getUserId() != null) {
+            markWritten("user:" + event.getUserId());
+        }
+    }
+
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        markWritten("user:" + event.getUserId());
+    }
+
+    @EventListener
+    public void onGenreChange(GenreChangeEvent event) {
+        markWritten("genres");
+    }
+}
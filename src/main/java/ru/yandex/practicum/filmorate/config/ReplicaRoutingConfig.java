@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSources replicaDataSources(ReplicaRoutingProperties properties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReplicaRoutingProperties.Replica replica : properties.getReplicas()) {
+            replicas.add(DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build());
+        }
+        return new ReplicaDataSources(replicas);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaRoutingProperties properties,
+                                                       ObjectProvider<Clock> clock) {
+        return new ReadYourWritesTracker(properties.getStickiness(), clock.getIfAvailable(Clock::systemUTC));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSources replicaDataSources,
+                                 ReadYourWritesTracker tracker) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        List<String> replicaKeys = new ArrayList<>();
+        for (int i = 0; i < replicaDataSources.dataSources().size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            targets.put(key, replicaDataSources.dataSources().get(i));
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaKeys, tracker);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        return routing;
+    }
+
+    @Bean
+    @Lazy(false)
+    @ConditionalOnProperty(prefix = "filmorate.datasource.routing.stand-in", name = "enabled", havingValue = "true")
+    public ReplicationStandIn replicationStandIn(HikariDataSource primaryDataSource,
+                                                 ReplicaDataSources replicaDataSources) {
+        return new ReplicationStandIn(primaryDataSource, replicaDataSources.dataSources());
+    }
+
+    /**
+     * Holder that keeps replica pools out of DataSource autowiring and closes them on shutdown.
+     */
+    public record ReplicaDataSources(List<DataSource> dataSources) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            for (DataSource dataSource : dataSources) {
+                if (dataSource instanceof HikariDataSource hikari) {
+                    hikari.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import ru.yandex.practicum.filmorate.storage.DataSourceRoute;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends reads marked with {@link DataSourceRoute} to replicas in round-robin order and everything else,
+ * including reads of recently written entities, to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(List<String> replicaKeys, ReadYourWritesTracker tracker) {
+        this.replicaKeys = List.copyOf(replicaKeys);
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty() || !DataSourceRoute.isRead()) {
+            return PRIMARY;
+        }
+        for (String stickyKey : DataSourceRoute.stickyKeys()) {
+            if (tracker.isSticky(stickyKey)) {
+                return PRIMARY;
+            }
+        }
+        return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+    }
+}
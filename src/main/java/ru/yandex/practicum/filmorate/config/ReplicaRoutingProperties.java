@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.datasource.routing")
+public class ReplicaRoutingProperties {
+    private boolean enabled;
+    private List<Replica> replicas = new ArrayList<>();
+    /**
+     * How long reads of a written entity stay on the primary. Zero disables read-your-writes stickiness.
+     */
+    private Duration stickiness = Duration.ofSeconds(5);
+    private StandIn standIn = new StandIn();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+
+    @Data
+    public static class StandIn {
+        private boolean enabled;
+        private Duration interval = Duration.ofSeconds(1);
+    }
+}
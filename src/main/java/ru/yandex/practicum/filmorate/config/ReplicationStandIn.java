@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local replacement for database replication: copies every table from the primary to each H2 replica on a fixed
+ * delay, all tables of a replica in one transaction so that its readers never see them empty or half-copied. Only
+ * meant for running the read/write split against two local databases.
+ */
+@Slf4j
+public class ReplicationStandIn implements InitializingBean {
+    private static final List<String> TABLES = List.of(
+            "mpa_ratings", "genres", "users", "films", "film_genres", "user_friends", "film_likes");
+
+    private final JdbcTemplate primary;
+    private final List<JdbcTemplate> replicas;
+    private final List<TransactionTemplate> transactions;
+
+    public ReplicationStandIn(DataSource primary, List<DataSource> replicas) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas.stream().map(JdbcTemplate::new).toList();
+        this.transactions = replicas.stream()
+                .map(replica -> new TransactionTemplate(new DataSourceTransactionManager(replica)))
+                .toList();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (JdbcTemplate replica : replicas) {
+            Flyway.configure()
+                    .dataSource(replica.getDataSource())
+                    .locations("classpath:db/migration")
+                    .load()
+                    .migrate();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.datasource.routing.stand-in.interval:PT1S}",
+            initialDelayString = "${filmorate.datasource.routing.stand-in.interval:PT1S}")
+    public synchronized void sync() {
+        for (int i = 0; i < replicas.size(); i++) {
+            JdbcTemplate replica = replicas.get(i);
+            replica.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            try {
+                transactions.get(i).executeWithoutResult(status -> {
+                    for (String table : TABLES) {
+                        copyTable(table, replica);
+                    }
+                });
+            } finally {
+                replica.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+        log.debug("Replicated {} tables to {} replicas", TABLES.size(), replicas.size());
+    }
+
+    private void copyTable(String table, JdbcTemplate replica) {
+        List<Map<String, Object>> rows = primary.queryForList("SELECT * FROM " + table);
+        replica.update("DELETE FROM " + table);
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = List.copyOf(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+        replica.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList());
+    }
+}
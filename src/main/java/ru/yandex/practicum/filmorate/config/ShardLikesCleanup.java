@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+
+import java.util.List;
+
+/**
+ * Removes the likes of a deleted user from every film shard. Users live in the main database, so shard
+ * {@code film_likes} has no foreign key that would cascade; tombstoned users are handled at once, not on purge.
+ */
+@Slf4j
+public class ShardLikesCleanup {
+    private final List<JdbcTemplate> shards;
+
+    public ShardLikesCleanup(List<JdbcTemplate> shards) {
+        this.shards = shards;
+    }
+
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        if (event.getType() != UserChangeEvent.Type.DELETED) {
+            return;
+        }
+        int removed = 0;
+        for (JdbcTemplate shard : shards) {
+            removed += shard.update("DELETE FROM film_likes WHERE user_id = ?", event.getUserId());
+        }
+        log.info("Removed {} likes of deleted user {} from {} shards", removed, event.getUserId(), shards.size());
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.event.GenreChangeEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the MPA ratings and genres of the main database into every film shard, since shards join them locally.
+ */
+public class ShardReferenceData implements InitializingBean {
+    private final JdbcTemplate main;
+    private final List<JdbcTemplate> shards;
+
+    public ShardReferenceData(JdbcTemplate main, List<JdbcTemplate> shards) {
+        this.main = main;
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        copy("mpa_ratings");
+        copy("genres");
+    }
+
+    @EventListener
+    public void onGenreChange(GenreChangeEvent event) {
+        copy("genres");
+    }
+
+    @EventListener
+    public void onCachesReset(CachesResetEvent event) {
+        copy("genres");
+    }
+
+    private void copy(String table) {
+        List<Map<String, Object>> rows = main.queryForList("SELECT id, name FROM " + table);
+        for (JdbcTemplate shard : shards) {
+            for (Map<String, Object> row : rows) {
+                if (shard.update("UPDATE " + table + " SET name = ? WHERE id = ?", row.get("name"), row.get("id")) == 0) {
+                    shard.update("INSERT INTO " + table + " (id, name) VALUES (?, ?)", row.get("id"), row.get("name"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmHydrator;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardDataSources shardDataSources(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("filmorate.sharding.shards must list at least one database");
+        }
+        List<JdbcTemplate> shards = new ArrayList<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            shards.add(new JdbcTemplate(DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build()));
+        }
+        ShardDataSources dataSources = new ShardDataSources(shards);
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                Flyway.configure()
+                        .dataSource(shards.get(i).getDataSource())
+                        .locations("classpath:db/shard")
+                        .placeholders(Map.of(
+                                "shardIndex", String.valueOf(i),
+                                "shardStart", String.valueOf(i + 1),
+                                "shardCount", String.valueOf(shards.size())))
+                        .load()
+                        .migrate();
+                checkLayout(shards.get(i), i, shards.size());
+            }
+        } catch (RuntimeException e) {
+            dataSources.close();
+            throw e;
+        }
+        return dataSources;
+    }
+
+    @Bean
+    public ShardReferenceData shardReferenceData(JdbcTemplate jdbcTemplate, ShardDataSources shardDataSources) {
+        return new ShardReferenceData(jdbcTemplate, shardDataSources.shards());
+    }
+
+    @Bean
+    public ShardLikesCleanup shardLikesCleanup(ShardDataSources shardDataSources) {
+        return new ShardLikesCleanup(shardDataSources.shards());
+    }
+
+    @Bean
+    public ShardedFilmStorage shardedFilmStorage(
+            ShardDataSources shardDataSources,
+            ShardReferenceData shardReferenceData,
+            ApplicationEventPublisher eventPublisher,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        List<FilmStorage> shards = new ArrayList<>();
+        // Shard queries already run in parallel, so each hydrates its films on its own thread
+        for (JdbcTemplate shard : shardDataSources.shards()) {
+            shards.add(new FilmDbStorage(shard, new GenreDbStorage(shard, eventPublisher),
+                    new FilmHydrator(shard, (Executor) null, false), eventPublisher));
+        }
+        return new ShardedFilmStorage(shards, executor);
+    }
+
+    /**
+     * Film ids encode their shard, so a shard created for another index or count would silently misroute reads and
+     * writes; refuse to start instead.
+     */
+    private static void checkLayout(JdbcTemplate shard, int index, int count) {
+        Map<String, Object> layout = shard.queryForMap("SELECT shard_index, shard_count FROM shard_layout");
+        int storedIndex = ((Number) layout.get("shard_index")).intValue();
+        int storedCount = ((Number) layout.get("shard_count")).intValue();
+        if (storedIndex != index || storedCount != count) {
+            throw new IllegalStateException("Shard " + index + " of " + count + " holds data of shard " + storedIndex
+                    + " of " + storedCount + "; the shard list cannot change once films are stored");
+        }
+    }
+
+    public record ShardDataSources(List<JdbcTemplate> shards) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            for (JdbcTemplate shard : shards) {
+                if (shard.getDataSource() instanceof HikariDataSource hikari) {
+                    hikari.close();
+                }
+            }
+        }
+    }
+}
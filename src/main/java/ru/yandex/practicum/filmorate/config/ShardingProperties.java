@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.sharding")
+public class ShardingProperties {
+    private boolean enabled;
+    /**
+     * Fixed once the shards hold data: a film's shard is derived from its id and the number of shards, and startup
+     * fails if the list no longer matches the one the shards were created with.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.stats.ActivityStats;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(StatsProperties.class)
+@ConditionalOnProperty(prefix = "filmorate.stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StatsConfig {
+
+    @Bean
+    public ActivityStats activityStats(StatsProperties properties) {
+        return new ActivityStats(properties.getBucket(), properties.getRetention(), properties.getHllPrecision(),
+                properties.getCmsWidth(), properties.getCmsDepth(), properties.getTopCapacity(), Clock.systemUTC());
+    }
+}
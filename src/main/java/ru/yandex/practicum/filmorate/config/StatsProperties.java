@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.stats")
+public class StatsProperties {
+    private boolean enabled = true;
+    /**
+     * Windows are answered in whole buckets.
+     */
+    private Duration bucket = Duration.ofMinutes(10);
+    private Duration retention = Duration.ofDays(1);
+    /**
+     * Distinct users are counted in 2^precision registers, with a standard error of about 1.6% at 12.
+     */
+    private int hllPrecision = 12;
+    private int cmsWidth = 1024;
+    private int cmsDepth = 4;
+    private int topCapacity = 100;
+}
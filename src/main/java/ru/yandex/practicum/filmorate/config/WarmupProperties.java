@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.warmup")
+public class WarmupProperties {
+    private boolean enabled = true;
+    /**
+     * Upper bound on warmup; readiness is reported after it even if latency has not settled.
+     */
+    private Duration maxDuration = Duration.ofSeconds(30);
+    /**
+     * How many popular films, and users who liked them, the synthetic mix requests.
+     */
+    private int sampleSize = 20;
+    private int batchSize = 200;
+    /**
+     * Latency is stable once the medians of this many consecutive batches differ by at most {@code tolerance}.
+     */
+    private int stableBatches = 3;
+    private double tolerance = 0.1;
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replays read-only traffic against the local server before the application reports readiness.
+ * Spring Boot switches readiness to ACCEPTING_TRAFFIC only after all runners finish, so the probe stays down
+ * while reference data and popular films are loaded into the response caches and the request path is compiled.
+ */
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ApplicationContext context;
+    private final WarmupProperties properties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+
+    public WarmupRunner(ApplicationContext context, WarmupProperties properties,
+                        ObjectMapper objectMapper) {
+        this.context = context;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        WebServer webServer = context instanceof WebServerApplicationContext webContext
+                ? webContext.getWebServer() : null;
+        if (webServer == null || webServer.getPort() <= 0) {
+            return;
+        }
+        String baseUrl = "http://localhost:" + webServer.getPort();
+        long started = System.nanoTime();
+        long deadline = started + properties.getMaxDuration().toNanos();
+        try {
+            List<String> paths = paths(baseUrl);
+            List<Long> medians = new ArrayList<>();
+            boolean stable = false;
+            while (!stable && System.nanoTime() < deadline) {
+                medians.add(runBatch(baseUrl, paths));
+                stable = isStable(medians);
+            }
+            log.info("Warmup finished in {} ms after {} batches of {} requests, median latency {} us, stable: {}",
+                    (System.nanoTime() - started) / 1_000_000, medians.size(), properties.getBatchSize(),
+                    medians.isEmpty() ? 0 : medians.get(medians.size() - 1) / 1_000, stable);
+        } catch (IOException | RuntimeException e) {
+            // Warmup only speeds up the first requests, so a failure must not keep the application from starting
+            log.warn("Warmup aborted: {}", e.toString());
+        }
+    }
+
+    private List<String> paths(String baseUrl) throws IOException, InterruptedException {
+        List<String> paths = new ArrayList<>(List.of("/genres", "/genres/1", "/mpa", "/mpa/1",
+                "/films/popular", "/films/popular?count=" + properties.getSampleSize()));
+        JsonNode popular = objectMapper.readTree(
+                get(baseUrl + "/films/popular?count=" + properties.getSampleSize()).body());
+        Set<Long> userIds = new LinkedHashSet<>();
+        if (!popular.isArray()) {
+            log.warn("Warmup sampled no popular films: unexpected response {}", popular.getNodeType());
+            return paths;
+        }
+        for (JsonNode film : popular) {
+            if (!film.hasNonNull("id")) {
+                continue;
+            }
+            paths.add("/films/" + film.get("id").asLong());
+            for (JsonNode like : film.path("likes")) {
+                if (userIds.size() < properties.getSampleSize()) {
+                    userIds.add(like.asLong());
+                }
+            }
+        }
+        Long previous = null;
+        for (Long userId : userIds) {
+            paths.add("/users/" + userId);
+            paths.add("/users/" + userId + "/friends");
+            if (previous != null) {
+                paths.add("/users/" + userId + "/friends/common/" + previous);
+            }
+            previous = userId;
+        }
+        return paths;
+    }
+
+    private long runBatch(String baseUrl, List<String> paths) throws IOException, InterruptedException {
+        long[] latencies = new long[properties.getBatchSize()];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            get(baseUrl + paths.get(i % paths.size()));
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2];
+    }
+
+    private boolean isStable(List<Long> medians) {
+        if (medians.size() < properties.getStableBatches()) {
+            return false;
+        }
+        List<Long> window = medians.subList(medians.size() - properties.getStableBatches(), medians.size());
+        long min = window.stream().mapToLong(Long::longValue).min().orElseThrow();
+        long max = window.stream().mapToLong(Long::longValue).max().orElseThrow();
+        return max - min <= min * properties.getTolerance();
+    }
+
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.analytics.CatalogAnalytics;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/analytics")
+@ConditionalOnProperty(prefix = "filmorate.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AnalyticsController {
+    private final CatalogAnalytics analytics;
+    private final FilmService filmService;
+    private final GenreDbStorage genreStorage;
+    private final MpaDbStorage mpaStorage;
+
+    public record GenreLikes(long genreId, String name, long likes) {
+    }
+
+    public record MpaFilms(long mpaId, String name, long films) {
+    }
+
+    public record Rebuild(int films) {
+    }
+
+    @GetMapping("/genres/likes")
+    public List<GenreLikes> getLikesByGenre() {
+        log.info("Получение лайков по жанрам");
+        Map<Long, String> names = genreStorage.getAllGenres().stream()
+                .collect(Collectors.toMap(Genre::getId, Genre::getName));
+        return analytics.likesByGenre().entrySet().stream()
+                .map(e -> new GenreLikes(e.getKey(), names.get(e.getKey()), e.getValue()))
+                .toList();
+    }
+
+    @GetMapping("/mpa/films")
+    public List<MpaFilms> getFilmsByMpa() {
+        log.info("Получение числа фильмов по рейтингам MPA");
+        Map<Long, String> names = mpaStorage.getAllMpa().stream()
+                .collect(Collectors.toMap(Mpa::getId, Mpa::getName));
+        return analytics.filmsByMpa().entrySet().stream()
+                .map(e -> new MpaFilms(e.getKey(), names.get(e.getKey()), e.getValue()))
+                .toList();
+    }
+
+    @GetMapping("/years/duration")
+    public List<CatalogAnalytics.YearDuration> getDurationByYear() {
+        log.info("Получение средней длительности фильмов по годам");
+        return analytics.durationByYear();
+    }
+
+    @GetMapping("/users/active")
+    public List<CatalogAnalytics.DayUsers> getActiveUsers(@RequestParam(defaultValue = "7") int days) {
+        log.info("Получение активных пользователей за {} дней", days);
+        if (days < 1 || days > analytics.activeDays()) {
+            throw new ValidationException("Количество дней должно быть от 1 до " + analytics.activeDays());
+        }
+        return analytics.activeUsers(days);
+    }
+
+    @PostMapping("/rebuild")
+    public Rebuild rebuild() {
+        log.info("Пересчёт аналитики");
+        return new Rebuild(filmService.rebuildAnalytics());
+    }
+}
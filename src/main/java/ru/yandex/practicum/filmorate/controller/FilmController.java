@@ -1,14 +1,24 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.cache.ResourceVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseBytesCache;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
 import ru.yandex.practicum.filmorate.exception.Update;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 @Slf4j
@@ -16,8 +26,12 @@ import java.util.List;
 @RequestMapping("/films")
 @Validated
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class FilmController {
+    private static final int CACHED_POPULAR_MAX_COUNT = 100;
     private final FilmService filmService;
+    private final ResourceVersions resourceVersions;
+    private final ResponseBytesCache responseBytesCache;
 
     @PostMapping
     public Film addFilm(@Valid @RequestBody Film film) {
@@ -32,16 +46,34 @@ public class FilmController {
         return filmService.updateFilm(film);
     }
 
+    @DeleteMapping("/{id}")
+    public ResponseEntity<PurgeWorker.Job> deleteFilm(@PathVariable Long id) {
+        log.info("Удаление фильма с id={}", id);
+        return filmService.deleteFilm(id)
+                .map(job -> ResponseEntity.accepted().body(job))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
     @GetMapping
-    public List<Film> getAllFilms() {
+    public List<Film> getAllFilms(@RequestParam(required = false) List<Long> ids) {
+        if (ids != null) {
+            log.info("Получение фильмов с id={}", ids);
+            return filmService.getFilmsByIds(ids);
+        }
         log.info("Получение всех фильмов");
         return filmService.getAllFilms();
     }
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable Long id) {
+    public Film getFilmById(@PathVariable Long id, WebRequest request) {
         log.info("Получение фильма с id={}", id);
-        return filmService.getFilmById(id);
+        // The tag is taken before the read, so a concurrent change can only make it older than the body
+        ResourceVersions.Tag tag = resourceVersions.film(id);
+        Film film = filmService.getFilmById(id);
+        if (request.checkNotModified(tag.etag(), tag.lastModified())) {
+            return null;
+        }
+        return film;
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -57,8 +89,13 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+    public void getPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
         log.info("Получение топ-{} популярных фильмов", count);
-        return filmService.getPopularFilms(count);
+        String key = count > 0 && count <= CACHED_POPULAR_MAX_COUNT ? "films/popular/" + count : null;
+        filmService.getPopularFilmsAge()
+                .ifPresent(age -> response.setHeader(HttpHeaders.AGE, String.valueOf(age.toSeconds())));
+        responseBytesCache.send(key, resourceVersions.popular(count), () -> filmService.getPopularFilms(count),
+                request, response);
     }
 }
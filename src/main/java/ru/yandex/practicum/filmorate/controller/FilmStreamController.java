@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.feed.FilmChangeFeed;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/films")
+@ConditionalOnProperty(prefix = "filmorate.feed", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FilmStreamController {
+    private final FilmChangeFeed filmChangeFeed;
+    private final FilmService filmService;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFilms() {
+        log.info("Подписка на изменения фильмов");
+        return filmChangeFeed.subscribe();
+    }
+
+    @GetMapping(path = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFilm(@PathVariable Long id) {
+        log.info("Подписка на изменения фильма с id={}", id);
+        return filmChangeFeed.subscribe(filmService.getFilmById(id));
+    }
+}
@@ -1,34 +1,48 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.cache.ResourceVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseBytesCache;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/genres")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GenreController {
     private static final Logger log = LoggerFactory.getLogger(GenreController.class);
     private final GenreDbStorage genreDbStorage;
+    private final ResourceVersions resourceVersions;
+    private final ResponseBytesCache responseBytesCache;
 
     @GetMapping
-    public List<Genre> getAllGenres() {
-        List<Genre> genres = genreDbStorage.getAllGenres();
-        log.info("Returning all genres: {}", genres);
-        return genres;
+    public void getAllGenres(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        responseBytesCache.send("genres", resourceVersions.genres(), () -> {
+            List<Genre> genres = genreDbStorage.getAllGenres();
+            log.info("Returning all genres: {}", genres);
+            return genres;
+        }, request, response);
     }
 
     @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable Long id) {
-        Genre genre = genreDbStorage.getGenreById(id)
-                .orElseThrow(() -> new NotFoundException("Жанр с id=" + id + " не найден"));
-        log.info("Returning genre: {}", genre);
-        return genre;
+    public void getGenreById(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        responseBytesCache.send("genres/" + id, resourceVersions.genres(), () -> {
+            Genre genre = genreDbStorage.getGenreById(id)
+                    .orElseThrow(() -> new NotFoundException("Жанр с id=" + id + " не найден"));
+            log.info("Returning genre: {}", genre);
+            return genre;
+        }, request, response);
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,43 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.cache.ResourceVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseBytesCache;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/mpa")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MpaController {
 
     private final MpaDbStorage mpaDbStorage;
+    private final ResourceVersions resourceVersions;
+    private final ResponseBytesCache responseBytesCache;
 
     @Autowired
-    public MpaController(MpaDbStorage mpaDbStorage) {
+    public MpaController(MpaDbStorage mpaDbStorage, ResourceVersions resourceVersions,
+                         ResponseBytesCache responseBytesCache) {
         this.mpaDbStorage = mpaDbStorage;
+        this.resourceVersions = resourceVersions;
+        this.responseBytesCache = responseBytesCache;
     }
 
     @GetMapping
-    public ResponseEntity<List<Mpa>> getAllMpa() {
-        List<Mpa> mpaList = mpaDbStorage.getAllMpa();
-        return ResponseEntity.ok(mpaList);
+    public void getAllMpa(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        responseBytesCache.send("mpa", resourceVersions.mpa(), mpaDbStorage::getAllMpa, request, response);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Mpa> getMpaById(@PathVariable Long id) {
-        Mpa mpa = mpaDbStorage.getMpaById(id)
-                .orElseThrow(() -> new NotFoundException("MPA with ID " + id + " not found"));
-        return ResponseEntity.ok(mpa);
+    public void getMpaById(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        responseBytesCache.send("mpa/" + id, resourceVersions.mpa(), () -> mpaDbStorage.getMpaById(id)
+                .orElseThrow(() -> new NotFoundException("MPA with ID " + id + " not found")), request, response);
     }
-}
\ No newline at end of file
+}
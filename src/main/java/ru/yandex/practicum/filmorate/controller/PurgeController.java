@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/purges")
+@ConditionalOnProperty(prefix = "filmorate.purge", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PurgeController {
+    private final PurgeWorker purgeWorker;
+
+    @GetMapping
+    public List<PurgeWorker.Job> getUnfinishedJobs() {
+        log.info("Получение незавершённых очисток");
+        return purgeWorker.getUnfinishedJobs();
+    }
+
+    @GetMapping("/{id}")
+    public PurgeWorker.Job getJob(@PathVariable long id) {
+        log.info("Получение очистки с id={}", id);
+        return purgeWorker.getJob(id)
+                .orElseThrow(() -> new NotFoundException("Очистка с id=" + id + " не найдена"));
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.Update;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+/**
+ * Film API of the reactive profile. Lists are written as they are read, as a JSON array or, for
+ * {@code Accept: application/x-ndjson}, one film per line.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/films")
+@Validated
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFilmController {
+    private final ReactiveFilmService filmService;
+
+    @PostMapping
+    public Mono<Film> addFilm(@Valid @RequestBody Film film) {
+        log.info("Добавление фильма: {}", film);
+        return filmService.addFilm(film);
+    }
+
+    @PutMapping
+    @Validated(Update.class)
+    public Mono<Film> updateFilm(@Valid @RequestBody Film film) {
+        log.info("Обновление фильма: {}", film);
+        return filmService.updateFilm(film);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteFilm(@PathVariable long id) {
+        log.info("Удаление фильма с id={}", id);
+        return filmService.deleteFilm(id);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Film> getAllFilms() {
+        log.info("Получение всех фильмов");
+        return filmService.getAllFilms();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Film> getFilmById(@PathVariable long id) {
+        log.info("Получение фильма с id={}", id);
+        return filmService.getFilmById(id);
+    }
+
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable long id, @PathVariable long userId) {
+        log.info("Пользователь id={} ставит лайк фильму id={}", userId, id);
+        return filmService.addLike(id, userId);
+    }
+
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Void> removeLike(@PathVariable long id, @PathVariable long userId) {
+        log.info("Пользователь id={} убирает лайк с фильма id={}", userId, id);
+        return filmService.removeLike(id, userId);
+    }
+
+    @GetMapping(path = "/popular", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+        log.info("Получение топ-{} популярных фильмов", count);
+        return filmService.getPopularFilms(count);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.stats.ActivityStats;
+
+import java.time.Duration;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/stats")
+@ConditionalOnProperty(prefix = "filmorate.stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StatsController {
+    private final ActivityStats activityStats;
+
+    public record FilmLikes(long filmId, Duration window, long likes) {
+    }
+
+    public record TopFilm(long filmId, long likes, long error) {
+    }
+
+    @GetMapping
+    public ActivityStats.Summary getSummary(@RequestParam(defaultValue = "P1D") Duration window) {
+        log.info("Получение статистики за {}", window);
+        return activityStats.summary(checkWindow(window));
+    }
+
+    @GetMapping("/films/{id}/likes")
+    public FilmLikes getFilmLikes(@PathVariable long id, @RequestParam(defaultValue = "PT1H") Duration window) {
+        log.info("Получение числа лайков фильма {} за {}", id, window);
+        return new FilmLikes(id, window, activityStats.filmLikes(id, checkWindow(window)));
+    }
+
+    @GetMapping("/films/top")
+    public List<TopFilm> getTopFilms(@RequestParam(defaultValue = "PT1H") Duration window,
+                                     @RequestParam(defaultValue = "10") int count) {
+        log.info("Получение {} самых популярных фильмов за {}", count, window);
+        if (count < 1 || count > activityStats.topCapacity()) {
+            throw new ValidationException("Количество фильмов должно быть от 1 до " + activityStats.topCapacity());
+        }
+        return activityStats.topFilms(count, checkWindow(window)).stream()
+                .map(entry -> new TopFilm(entry.key(), entry.count(), entry.error()))
+                .toList();
+    }
+
+    private Duration checkWindow(Duration window) {
+        if (window.isNegative() || window.isZero() || window.compareTo(activityStats.retention()) > 0) {
+            throw new ValidationException("Окно статистики должно быть положительным и не больше "
+                    + activityStats.retention());
+        }
+        return window;
+    }
+}
@@ -2,11 +2,14 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -15,8 +18,11 @@ import java.util.List;
 @RestController
 @RequestMapping("/users")
 @Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
+    private static final int DEFAULT_FRIENDS_PAGE = 100;
+
     private final UserService userService;
 
     @Autowired
@@ -38,8 +44,20 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
 
+    @DeleteMapping("/{id}")
+    public ResponseEntity<PurgeWorker.Job> deleteUser(@PathVariable Long id) {
+        log.info("Удаление пользователя с id={}", id);
+        return userService.deleteUser(id)
+                .map(job -> ResponseEntity.accepted().body(job))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) List<Long> ids) {
+        if (ids != null) {
+            log.info("Получение пользователей с id={}", ids);
+            return ResponseEntity.ok(userService.getUsersByIds(ids));
+        }
         log.info("Получение всех пользователей");
         return ResponseEntity.ok(userService.getAllUsers());
     }
@@ -69,16 +87,49 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public ResponseEntity<List<User>> getFriends(@PathVariable Long id) {
+    public ResponseEntity<List<User>> getFriends(@PathVariable Long id,
+                                                 @RequestParam(required = false) Long after,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (after != null || limit != null) {
+            log.info("Получение страницы друзей пользователя id={} после id={}", id, after);
+            return ResponseEntity.ok(userService.getFriends(id, after,
+                    limit == null ? DEFAULT_FRIENDS_PAGE : limit));
+        }
         log.info("Получение списка друзей пользователя id={}", id);
         userService.getUserById(id);
         List<User> friends = userService.getFriends(id);
         return ResponseEntity.ok(friends);
     }
 
+    @GetMapping("/{id}/friends/count")
+    public ResponseEntity<Integer> getFriendCount(@PathVariable Long id) {
+        log.info("Получение числа друзей пользователя id={}", id);
+        return ResponseEntity.ok(userService.getFriendCount(id));
+    }
+
+    @GetMapping("/friends/common")
+    public ResponseEntity<List<User>> getCommonFriends(@RequestParam List<Long> ids) {
+        log.info("Получение общих друзей пользователей {}", ids);
+        return ResponseEntity.ok(userService.getCommonFriends(ids));
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public ResponseEntity<List<User>> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
         log.info("Получение общих друзей пользователей id={} и id={}", id, otherId);
         return ResponseEntity.ok(userService.getCommonFriends(id, otherId));
     }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public ResponseEntity<List<User>> getPath(@PathVariable Long id, @PathVariable Long otherId,
+                                              @RequestParam(defaultValue = "6") int maxDepth) {
+        log.info("Поиск цепочки друзей от id={} до id={} глубиной до {}", id, otherId, maxDepth);
+        return ResponseEntity.ok(userService.getPath(id, otherId, maxDepth));
+    }
+
+    @GetMapping("/{id}/reach")
+    public ResponseEntity<FriendGraph.Reach> getReach(@PathVariable Long id,
+                                                      @RequestParam(defaultValue = "2") int depth) {
+        log.info("Подсчёт пользователей в {} шагах от id={}", depth, id);
+        return ResponseEntity.ok(userService.getReach(id, depth));
+    }
 }
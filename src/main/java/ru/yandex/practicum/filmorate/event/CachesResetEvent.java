@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+
+/**
+ * Changes made by other instances may have been missed, so state derived from the database has to be reloaded.
+ */
+@Value
+public class CachesResetEvent {
+}
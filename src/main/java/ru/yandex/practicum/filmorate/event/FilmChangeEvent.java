@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+
+@Value
+public class FilmChangeEvent {
+    public enum Type { CREATED, UPDATED, DELETED, LIKE_ADDED, LIKE_REMOVED }
+
+    Type type;
+    Long filmId;
+    Long userId;
+
+    public static FilmChangeEvent of(Type type, Long filmId) {
+        return new FilmChangeEvent(type, filmId, null);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+
+@Value
+public class GenreChangeEvent {
+    Long genreId;
+}
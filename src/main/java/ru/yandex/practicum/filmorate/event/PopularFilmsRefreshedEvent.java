@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+
+/**
+ * A popular list that was served stale has been replaced by a fresh one in the background.
+ */
+@Value
+public class PopularFilmsRefreshedEvent {
+    int count;
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.Value;
+
+@Value
+public class UserChangeEvent {
+    public enum Type { CREATED, UPDATED, DELETED, FRIEND_ADDED, FRIEND_REMOVED }
+
+    Type type;
+    Long userId;
+    Long friendId;
+
+    public static UserChangeEvent of(Type type, Long userId) {
+        return new UserChangeEvent(type, userId, null);
+    }
+}
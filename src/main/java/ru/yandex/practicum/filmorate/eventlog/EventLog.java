@@ -0,0 +1,340 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of fixed-size records in memory-mapped segment files named after their first sequence number.
+ * Appenders write under a lock and then wait until a single flusher thread has forced their record to disk; every
+ * force covers all records written since the previous one, so concurrent appenders share one fsync. Readers only
+ * see durable records. On open the tail of the last segment is scanned and anything after the last valid record
+ * is zeroed.
+ */
+@Slf4j
+public class EventLog implements AutoCloseable {
+    static final int RECORD_SIZE = 32;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean fsync;
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final List<EventLogProjection> projections = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition durableAdvanced = lock.newCondition();
+    private final Thread flusher;
+    private Segment active;
+    private long nextSequence;
+    private long writtenSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+
+    private EventLog(Path directory, long segmentSize, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentRecords = (int) Math.max(1, Math.min(Integer.MAX_VALUE / RECORD_SIZE, segmentSize / RECORD_SIZE));
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(firstSequence, Segment.map(file, firstSequence, Files.size(file) / RECORD_SIZE));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(1L, createSegment(1));
+        }
+        active = segments.lastEntry().getValue();
+        nextSequence = active.recover();
+        writtenSequence = nextSequence - 1;
+        durableSequence = writtenSequence;
+        flusher = Thread.ofPlatform().daemon().name("eventlog-flusher").start(this::flushLoop);
+        log.info("Opened event log {} at sequence {} with {} segments", directory, writtenSequence, segments.size());
+    }
+
+    public static EventLog open(Path directory, long segmentSize, boolean fsync) {
+        try {
+            return new EventLog(directory, segmentSize, fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends an event and returns its sequence number once it is durable.
+     */
+    public long append(LogEvent.Type type, long subjectId, long objectId) {
+        lock.lock();
+        try {
+            ensureOpen();
+            if (nextSequence - active.firstSequence >= active.capacity) {
+                roll();
+            }
+            long sequence = nextSequence++;
+            active.write(sequence, type, subjectId, objectId);
+            writtenSequence = sequence;
+            if (!fsync) {
+                durableSequence = sequence;
+                durableAdvanced.signalAll();
+                return sequence;
+            }
+            flushNeeded.signal();
+            while (durableSequence < sequence) {
+                ensureOpen();
+                durableAdvanced.awaitUninterruptibly();
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code max} durable events starting at {@code fromSequence}.
+     */
+    public List<LogEvent> read(long fromSequence, int max) {
+        long durable = durableSequence;
+        List<LogEvent> events = new ArrayList<>();
+        long sequence = Math.max(1, fromSequence);
+        while (sequence <= durable && events.size() < max) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(sequence);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            long last = Math.min(durable, segment.firstSequence + segment.capacity - 1);
+            for (; sequence <= last && events.size() < max; sequence++) {
+                events.add(segment.read(sequence));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Waits until an event after {@code sequence} is durable or the timeout elapses.
+     *
+     * @return {@code true} if such an event exists
+     */
+    public boolean awaitAfter(long sequence, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (durableSequence <= sequence && !closed && nanos > 0) {
+                nanos = durableAdvanced.awaitNanos(nanos);
+            }
+            return durableSequence > sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Starts applying events to a projection in a background thread. Progress is kept in
+     * {@code <name>.checkpoint} next to the segments, so after a restart only events past it are replayed.
+     */
+    public EventLogProjection project(String name, Consumer<LogEvent> handler) {
+        EventLogProjection projection = new EventLogProjection(this, name,
+                directory.resolve(name + ".checkpoint"), handler);
+        projections.add(projection);
+        projection.start();
+        return projection;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signalAll();
+            durableAdvanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (EventLogProjection projection : projections) {
+            projection.close();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            Segment segment;
+            long from;
+            long target;
+            lock.lock();
+            try {
+                while (!closed && writtenSequence == durableSequence) {
+                    flushNeeded.awaitUninterruptibly();
+                }
+                if (writtenSequence == durableSequence) {
+                    return;
+                }
+                segment = active;
+                from = Math.max(durableSequence + 1, segment.firstSequence);
+                target = writtenSequence;
+            } finally {
+                lock.unlock();
+            }
+            segment.force(from, target);
+            lock.lock();
+            try {
+                durableSequence = Math.max(durableSequence, target);
+                durableAdvanced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void roll() {
+        active.force(active.firstSequence, writtenSequence);
+        if (!fsync) {
+            durableSequence = writtenSequence;
+        }
+        active = createSegment(nextSequence);
+        segments.put(active.firstSequence, active);
+        log.debug("Rolled event log to segment {}", active.firstSequence);
+    }
+
+    private Segment createSegment(long firstSequence) {
+        try {
+            return Segment.map(directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX)),
+                    firstSequence, segmentRecords);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Журнал событий закрыт");
+        }
+    }
+
+    /**
+     * Record layout: sequence, subject id, object id (8 bytes each), type ordinal and CRC32C of the preceding
+     * 28 bytes (4 bytes each). A zero sequence marks unused space.
+     */
+    private static final class Segment {
+        private static final LogEvent.Type[] TYPES = LogEvent.Type.values();
+
+        private final long firstSequence;
+        private final long capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long firstSequence, long capacity, FileChannel channel, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(Path file, long firstSequence, long records) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, records * RECORD_SIZE);
+            return new Segment(firstSequence, records, channel, buffer);
+        }
+
+        long recover() {
+            long count = 0;
+            while (count < capacity && isValid(count)) {
+                count++;
+            }
+            for (long index = count; index < capacity && buffer.getLong(offset(index)) != 0; index++) {
+                for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+                    buffer.putLong(offset(index) + i, 0);
+                }
+            }
+            return firstSequence + count;
+        }
+
+        void write(long sequence, LogEvent.Type type, long subjectId, long objectId) {
+            int offset = offset(sequence - firstSequence);
+            buffer.putLong(offset, sequence);
+            buffer.putLong(offset + 8, subjectId);
+            buffer.putLong(offset + 16, objectId);
+            buffer.putInt(offset + 24, type.ordinal());
+            buffer.putInt(offset + 28, checksum(offset));
+        }
+
+        LogEvent read(long sequence) {
+            int offset = offset(sequence - firstSequence);
+            return new LogEvent(buffer.getLong(offset), TYPES[buffer.getInt(offset + 24)],
+                    buffer.getLong(offset + 8), buffer.getLong(offset + 16));
+        }
+
+        void force(long fromSequence, long toSequence) {
+            if (toSequence < fromSequence) {
+                return;
+            }
+            int from = offset(fromSequence - firstSequence);
+            buffer.force(from, offset(toSequence - firstSequence) + RECORD_SIZE - from);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close event log segment {}: {}", firstSequence, e.getMessage());
+            }
+        }
+
+        private boolean isValid(long index) {
+            int offset = offset(index);
+            int type = buffer.getInt(offset + 24);
+            return buffer.getLong(offset) == firstSequence + index
+                    && type >= 0 && type < TYPES.length
+                    && buffer.getInt(offset + 28) == checksum(offset);
+        }
+
+        private int checksum(int offset) {
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset, RECORD_SIZE - Integer.BYTES));
+            return (int) crc.getValue();
+        }
+
+        private static int offset(long index) {
+            return (int) (index * RECORD_SIZE);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tails an {@link EventLog} and hands each event to a handler, checkpointing after every batch. Events rejected by
+ * the target (already applied, or referring to a deleted film or user) are skipped; other failures are retried.
+ */
+@Slf4j
+public class EventLogProjection implements AutoCloseable {
+    private static final int BATCH_SIZE = 1000;
+    private static final Duration IDLE_WAIT = Duration.ofSeconds(1);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final EventLog eventLog;
+    private final String name;
+    private final Consumer<LogEvent> handler;
+    private final FileChannel checkpoint;
+    private volatile long appliedSequence;
+    private volatile boolean closed;
+    private Thread thread;
+
+    EventLogProjection(EventLog eventLog, String name, Path checkpointFile, Consumer<LogEvent> handler) {
+        this.eventLog = eventLog;
+        this.name = name;
+        this.handler = handler;
+        try {
+            this.checkpoint = FileChannel.open(checkpointFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer value = ByteBuffer.allocate(Long.BYTES);
+            this.appliedSequence = checkpoint.read(value, 0) == Long.BYTES ? value.getLong(0) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    void start() {
+        thread = Thread.ofPlatform().daemon().name("eventlog-" + name).start(this::run);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            checkpoint.close();
+        } catch (IOException e) {
+            log.warn("Failed to close checkpoint of projection {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void run() {
+        log.info("Projection {} resumes after sequence {}", name, appliedSequence);
+        try {
+            while (!closed && !eventLog.isClosed()) {
+                List<LogEvent> batch = eventLog.read(appliedSequence + 1, BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    eventLog.awaitAfter(appliedSequence, IDLE_WAIT);
+                    continue;
+                }
+                long applied = appliedSequence;
+                for (LogEvent event : batch) {
+                    if (!apply(event)) {
+                        break;
+                    }
+                    applied = event.sequence();
+                }
+                saveCheckpoint(applied);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean apply(LogEvent event) throws InterruptedException {
+        try {
+            handler.accept(event);
+            return true;
+        } catch (DataIntegrityViolationException | NotFoundException e) {
+            log.warn("Projection {} skipped event {}: {}", name, event, e.getMessage());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Projection {} failed on event {}, retrying: {}", name, event, e.getMessage());
+            Thread.sleep(RETRY_DELAY.toMillis());
+            return false;
+        }
+    }
+
+    private void saveCheckpoint(long sequence) {
+        if (sequence == appliedSequence) {
+            return;
+        }
+        try {
+            checkpoint.write(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence), 0);
+            checkpoint.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        appliedSequence = sequence;
+    }
+}
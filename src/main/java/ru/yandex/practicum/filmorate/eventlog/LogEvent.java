@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+/**
+ * One entry of the {@link EventLog}. For likes the subject is the film and the object the user, for friendships
+ * the subject is the user and the object the friend.
+ */
+public record LogEvent(long sequence, Type type, long subjectId, long objectId) {
+
+    public enum Type { LIKE_ADDED, LIKE_REMOVED, FRIEND_ADDED, FRIEND_REMOVED }
+}
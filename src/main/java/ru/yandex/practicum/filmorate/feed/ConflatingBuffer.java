@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.feed;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pending events of one subscriber, kept per film: a newer like count replaces the pending one and adds up the
+ * deltas, a newer film version replaces the older, and a deletion replaces everything pending for the film. When
+ * changes of more than {@code capacity} films are pending the buffer drops them all and delivers a single
+ * {@link FeedEvent.Reset} instead, so a subscriber that stops reading holds a bounded amount of memory.
+ */
+public final class ConflatingBuffer {
+    private final int capacity;
+    private final Map<Long, Pending> pending = new LinkedHashMap<>();
+    private boolean overflowed;
+
+    public ConflatingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public synchronized void offer(FeedEvent event) {
+        if (overflowed) {
+            return;
+        }
+        switch (event) {
+            case FeedEvent.Likes likes -> {
+                Pending film = pending(likes.filmId());
+                if (film != null && film.deleted == null) {
+                    film.likes = film.likes == null ? likes
+                            : new FeedEvent.Likes(likes.filmId(), likes.likes(), film.likes.delta() + likes.delta());
+                }
+            }
+            case FeedEvent.Updated updated -> {
+                Pending film = pending(updated.film().getId());
+                if (film != null && film.deleted == null) {
+                    film.updated = updated;
+                }
+            }
+            case FeedEvent.Deleted deleted -> {
+                Pending film = pending(deleted.filmId());
+                if (film != null) {
+                    film.likes = null;
+                    film.updated = null;
+                    film.deleted = deleted;
+                }
+            }
+            case FeedEvent.Reset reset -> overflow();
+        }
+    }
+
+    /**
+     * Takes the pending events, films in the order of their first pending change.
+     */
+    public synchronized List<FeedEvent> drain() {
+        if (overflowed) {
+            overflowed = false;
+            return List.of(new FeedEvent.Reset());
+        }
+        List<FeedEvent> events = new ArrayList<>(pending.size());
+        for (Pending film : pending.values()) {
+            if (film.deleted != null) {
+                events.add(film.deleted);
+                continue;
+            }
+            if (film.updated != null) {
+                events.add(film.updated);
+            }
+            if (film.likes != null) {
+                events.add(film.likes);
+            }
+        }
+        pending.clear();
+        return events;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty() && !overflowed;
+    }
+
+    private Pending pending(long filmId) {
+        Pending film = pending.get(filmId);
+        if (film == null) {
+            if (pending.size() >= capacity) {
+                overflow();
+                return null;
+            }
+            film = new Pending();
+            pending.put(filmId, film);
+        }
+        return film;
+    }
+
+    private void overflow() {
+        pending.clear();
+        overflowed = true;
+    }
+
+    private static final class Pending {
+        FeedEvent.Likes likes;
+        FeedEvent.Updated updated;
+        FeedEvent.Deleted deleted;
+    }
+}
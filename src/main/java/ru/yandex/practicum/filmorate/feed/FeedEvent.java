@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.feed;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Change pushed to film stream subscribers.
+ */
+public sealed interface FeedEvent {
+
+    /**
+     * @param likes the film's like count after the change
+     * @param delta the sum of the changes conflated into this event
+     */
+    record Likes(long filmId, int likes, int delta) implements FeedEvent {
+    }
+
+    record Updated(Film film) implements FeedEvent {
+    }
+
+    record Deleted(long filmId) implements FeedEvent {
+    }
+
+    /**
+     * Sent in place of the changes a subscriber fell too far behind to receive; the client should reload.
+     */
+    record Reset() implements FeedEvent {
+    }
+}
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes film changes to Server-Sent Events subscribers, either of the whole catalog or of one film. Writers only
+ * hand the event to a single fan-out thread, which keeps events in publication order and puts them into each
+ * matching subscriber's {@link ConflatingBuffer}. A subscriber with pending events gets a virtual thread that
+ * drains its buffer into the connection; at most one runs per subscriber, so a slow client only parks its own
+ * thread while its changes keep conflating, and an idle connection holds no thread at all.
+ */
+@Slf4j
+public class FilmChangeFeed implements AutoCloseable {
+    private final int bufferSize;
+    private final Duration timeout;
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("film-feed-fan-out").daemon().factory());
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("film-feed-sender-", 0).factory());
+    private final Set<Subscriber> catalog = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> films = new ConcurrentHashMap<>();
+
+    public FilmChangeFeed(int bufferSize, Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribes to changes of every film.
+     */
+    public SseEmitter subscribe() {
+        Subscriber subscriber = new Subscriber(null);
+        catalog.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Subscribes to changes of {@code film}, starting with the film itself.
+     */
+    public SseEmitter subscribe(Film film) {
+        Subscriber subscriber = new Subscriber(film.getId());
+        films.computeIfAbsent(film.getId(), id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.offer(new FeedEvent.Updated(film));
+        return subscriber.emitter;
+    }
+
+    public void likeChanged(long filmId, int likes, int delta) {
+        publish(filmId, new FeedEvent.Likes(filmId, likes, delta));
+    }
+
+    public void filmUpdated(Film film) {
+        publish(film.getId(), new FeedEvent.Updated(film));
+    }
+
+    public void filmDeleted(long filmId) {
+        publish(filmId, new FeedEvent.Deleted(filmId));
+    }
+
+    public int subscribers() {
+        return catalog.size() + films.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Sends a comment to every subscriber, so proxies keep idle connections open and dead ones are detected.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.feed.heartbeat:PT15S}")
+    public void heartbeat() {
+        catalog.forEach(Subscriber::heartbeat);
+        films.values().forEach(subscribers -> subscribers.forEach(Subscriber::heartbeat));
+    }
+
+    @Override
+    public void close() {
+        fanOut.shutdownNow();
+        senders.shutdownNow();
+        catalog.forEach(subscriber -> subscriber.emitter.complete());
+        films.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void publish(long filmId, FeedEvent event) {
+        try {
+            fanOut.execute(() -> {
+                catalog.forEach(subscriber -> subscriber.offer(event));
+                Set<Subscriber> subscribers = films.get(filmId);
+                if (subscribers != null) {
+                    subscribers.forEach(subscriber -> subscriber.offer(event));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Film feed is closed, dropping {}", event);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber.filmId == null) {
+            catalog.remove(subscriber);
+            return;
+        }
+        films.computeIfPresent(subscriber.filmId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private final class Subscriber {
+        final Long filmId;
+        final SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        final ConflatingBuffer buffer = new ConflatingBuffer(bufferSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean heartbeat;
+
+        Subscriber(Long filmId) {
+            this.filmId = filmId;
+            emitter.onCompletion(() -> remove(this));
+            emitter.onTimeout(() -> remove(this));
+            emitter.onError(e -> remove(this));
+        }
+
+        void offer(FeedEvent event) {
+            buffer.offer(event);
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeat = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            try {
+                do {
+                    List<FeedEvent> events = buffer.drain();
+                    if (events.isEmpty() && heartbeat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    heartbeat = false;
+                    for (FeedEvent event : events) {
+                        if (send(event)) {
+                            return;
+                        }
+                    }
+                    scheduled.set(false);
+                    // Events offered after the drain but before the flag was cleared found it still set
+                } while ((!buffer.isEmpty() || heartbeat) && scheduled.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Film feed subscriber disconnected: {}", e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * @return {@code true} if the subscription ended with this event
+         */
+        boolean send(FeedEvent event) throws IOException {
+            switch (event) {
+                case FeedEvent.Likes likes -> emitter.send(SseEmitter.event().name("likes").data(likes));
+                case FeedEvent.Updated updated -> emitter.send(SseEmitter.event().name("updated").data(updated.film()));
+                case FeedEvent.Deleted deleted -> {
+                    emitter.send(SseEmitter.event().name("deleted").data(deleted));
+                    if (filmId != null) {
+                        remove(this);
+                        emitter.complete();
+                        return true;
+                    }
+                }
+                case FeedEvent.Reset reset -> emitter.send(SseEmitter.event().name("reset").data(reset));
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit adjusted by AIMD: every request completed under the latency threshold while the limit is at
+ * least half used raises it by one, every slower request multiplies it by the backoff ratio. Requests over the
+ * limit wait in a bounded queue for at most {@code maxWait}; the rest are rejected straight away.
+ */
+public class AdaptiveLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+                           double backoffRatio, int queueCapacity, Duration maxWait) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("minLimit must be between 1 and maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a permit, waiting in the queue if needed. Every successful call must be paired with {@link #release}.
+     *
+     * @return {@code false} if the queue is full or no permit freed up within the wait time
+     */
+    public boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (waiting == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= queueCapacity) {
+                return false;
+            }
+            waiting++;
+            try {
+                long nanos = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            int observed = inFlight--;
+            if (latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                available.signal();
+            } else if (observed * 2 >= limit && limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1);
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
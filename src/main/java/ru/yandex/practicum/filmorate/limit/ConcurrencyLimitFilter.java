@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.exception.ErrorResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Admits API requests through the limiter of their endpoint class and answers 503 with Retry-After when it is full.
+ * A request that starts async processing, such as an event stream, returns its permit when its first dispatch
+ * ends; async dispatches are not limited again.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Map<EndpointClass, AdaptiveLimiter> limiters;
+    private final String retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(Map<EndpointClass, AdaptiveLimiter> limiters, Duration retryAfter,
+                                  ObjectMapper objectMapper) {
+        this.limiters = limiters;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()), request.getQueryString());
+        AdaptiveLimiter limiter = endpointClass == null ? null : limiters.get(endpointClass);
+        if (limiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.debug("Rejected {} {}: {} limit {} reached", request.getMethod(), request.getRequestURI(),
+                    endpointClass, limiter.getLimit());
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(Map.of("error", "Сервер перегружен, повторите запрос позже")));
+    }
+}
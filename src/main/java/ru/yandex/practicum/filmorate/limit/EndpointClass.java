@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.limit;
+
+/**
+ * Groups endpoints by cost so that unbounded list queries cannot take the permits of cheap lookups and writes.
+ * Popular films are bounded by {@code count} and mostly served from a cache, so they neither queue behind full
+ * scans nor hold back the lookups. Lists asked for by {@code ids} are bounded lookups too.
+ */
+public enum EndpointClass {
+    LIST,
+    POPULAR,
+    READ,
+    WRITE;
+
+    /**
+     * Returns the class of an API request, or {@code null} for paths that are not limited (actuator, errors).
+     */
+    public static EndpointClass of(String method, String path) {
+        return of(method, path, null);
+    }
+
+    /**
+     * Returns the class of an API request with the given raw query string, or {@code null} for paths that are not
+     * limited (actuator, errors).
+     */
+    public static EndpointClass of(String method, String path, String query) {
+        if (!path.startsWith("/films") && !path.startsWith("/users")
+                && !path.startsWith("/genres") && !path.startsWith("/mpa")) {
+            return null;
+        }
+        if (!"GET".equals(method)) {
+            return WRITE;
+        }
+        if (path.equals("/films") || path.equals("/users")) {
+            return hasParameter(query, "ids") ? READ : LIST;
+        }
+        if (path.equals("/films/popular")) {
+            return POPULAR;
+        }
+        return READ;
+    }
+
+    private static boolean hasParameter(String query, String name) {
+        if (query == null) {
+            return false;
+        }
+        for (String parameter : query.split("&")) {
+            int end = parameter.indexOf('=');
+            if ((end < 0 ? parameter : parameter.substring(0, end)).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,20 +1,47 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.analytics.CatalogAnalytics;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.PopularFilmsRefreshedEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+import ru.yandex.practicum.filmorate.eventlog.EventLog;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.feed.FilmChangeFeed;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.stats.ActivityStats;
+import ru.yandex.practicum.filmorate.storage.InClause;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
+import ru.yandex.practicum.filmorate.storage.film.CoalescingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.EventSourcedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularFilmsSnapshot;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
 import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,17 +51,61 @@ public class FilmService {
     private final UserStorage userStorage;
     private final GenreDbStorage genreStorage;
     private final MpaDbStorage mpaStorage;
+    private final PopularFilmsSnapshot popularSnapshot;
+    private final ActivityStats activityStats;
+    private final CatalogAnalytics analytics;
+    private final PurgeWorker purgeWorker;
+    private final FilmChangeFeed changeFeed;
+    private final Executor executor;
+    private final AtomicBoolean analyticsRebuildQueued = new AtomicBoolean();
 
-    private static final LocalDate EARLIEST_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    static final LocalDate EARLIEST_RELEASE_DATE = LocalDate.of(1895, 12, 28);
 
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
-                       @Qualifier("userDbStorage") UserStorage userStorage,
+    public FilmService(Map<String, FilmStorage> filmStorages,
+                       @Value("${filmorate.storage.films:filmDbStorage}") String filmStorageName,
+                       Map<String, UserStorage> userStorages,
+                       @Value("${filmorate.storage.users:userDbStorage}") String userStorageName,
                        GenreDbStorage genreStorage,
-                       MpaDbStorage mpaStorage) {
-        this.filmStorage = filmStorage;
-        this.userStorage = userStorage;
+                       MpaDbStorage mpaStorage,
+                       @Value("${filmorate.storage.coalescing.enabled:true}") boolean coalescing,
+                       @Value("${filmorate.storage.coalescing.popular-max-stale:PT2S}") Duration popularMaxStale,
+                       @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                       ObjectProvider<Executor> executor,
+                       ApplicationEventPublisher eventPublisher,
+                       ObjectProvider<PopularFilmsSnapshot> popularSnapshot,
+                       ObjectProvider<EventLog> eventLog,
+                       ObjectProvider<ActivityStats> activityStats,
+                       ObjectProvider<CatalogAnalytics> analytics,
+                       ObjectProvider<PurgeWorker> purgeWorker,
+                       ObjectProvider<FilmChangeFeed> changeFeed) {
+        FilmStorage selected = filmStorages.get(filmStorageName);
+        if (selected == null) {
+            throw new IllegalStateException("Хранилище фильмов '" + filmStorageName + "' не найдено, доступны: "
+                    + filmStorages.keySet());
+        }
+        if (eventLog.getIfAvailable() != null) {
+            selected = new EventSourcedFilmStorage(selected, eventLog.getObject());
+        }
+        this.executor = executor.getIfAvailable(() -> Runnable::run);
+        this.filmStorage = coalescing
+                ? new CoalescingFilmStorage(selected, popularMaxStale, this.executor,
+                        count -> eventPublisher.publishEvent(new PopularFilmsRefreshedEvent(count)))
+                : selected;
+        this.userStorage = userStorages.get(userStorageName);
+        if (this.userStorage == null) {
+            throw new IllegalStateException("Хранилище пользователей '" + userStorageName + "' не найдено, доступны: "
+                    + userStorages.keySet());
+        }
         this.genreStorage = genreStorage;
         this.mpaStorage = mpaStorage;
+        this.activityStats = activityStats.getIfAvailable();
+        this.analytics = analytics.getIfAvailable();
+        // Only films of the main database can be tombstoned
+        this.purgeWorker = filmStorages.get(filmStorageName) instanceof FilmDbStorage
+                ? purgeWorker.getIfAvailable()
+                : null;
+        this.popularSnapshot = popularSnapshot.getIfAvailable();
+        this.changeFeed = changeFeed.getIfAvailable();
     }
 
     public Film addFilm(Film film) {
@@ -42,6 +113,9 @@ public class FilmService {
         validateMpaExists(film);
         validateGenresExist(film);
         Film addedFilm = filmStorage.addFilm(film);
+        if (analytics != null) {
+            analytics.filmAdded(addedFilm);
+        }
         log.info("Added film: {}", addedFilm);
         return addedFilm;
     }
@@ -51,16 +125,52 @@ public class FilmService {
         validateMpaExists(film);
         validateGenresExist(film);
         Film updatedFilm = filmStorage.updateFilm(film);
+        if (analytics != null) {
+            analytics.filmUpdated(updatedFilm);
+        }
+        if (changeFeed != null) {
+            changeFeed.filmUpdated(updatedFilm);
+        }
         log.info("Updated film: {}", updatedFilm);
         return updatedFilm;
     }
 
+    /**
+     * @return the purge job when the film was tombstoned and its likes are being removed in the background
+     */
+    public Optional<PurgeWorker.Job> deleteFilm(Long id) {
+        Film film = getFilmById(id);
+        Optional<PurgeWorker.Job> job = Optional.empty();
+        if (purgeWorker != null) {
+            job = Optional.of(purgeWorker.deleteFilm(id));
+        } else {
+            filmStorage.deleteFilm(id);
+        }
+        if (analytics != null) {
+            analytics.filmDeleted(film);
+        }
+        if (changeFeed != null) {
+            changeFeed.filmDeleted(id);
+        }
+        log.info("Deleted film {}", id);
+        return job;
+    }
+
     public List<Film> getAllFilms() {
         List<Film> films = filmStorage.getAllFilms();
         log.info("Returning all films: {}", films);
         return films;
     }
 
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        if (ids.size() > InClause.MAX_SIZE) {
+            throw new ValidationException("Можно запросить не больше " + InClause.MAX_SIZE + " фильмов за раз");
+        }
+        List<Film> films = filmStorage.getFilmsByIds(ids);
+        log.info("Returning {} of {} requested films", films.size(), ids.size());
+        return films;
+    }
+
     public Film getFilmById(Long id) {
         Film film = filmStorage.getFilmById(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с id=" + id + " не найден"));
@@ -69,25 +179,150 @@ public class FilmService {
     }
 
     public void addLike(Long filmId, Long userId) {
-        getFilmById(filmId);
+        Film film = getFilmById(filmId);
         getUserById(userId);
         filmStorage.addLike(filmId, userId);
+        if (!film.getLikes().contains(userId)) {
+            if (activityStats != null) {
+                activityStats.recordLike(filmId, userId);
+            }
+            likeChanged(film, userId, 1);
+        }
         log.info("Added like to filmId={} by userId={}", filmId, userId);
     }
 
     public void removeLike(Long filmId, Long userId) {
-        getFilmById(filmId);
+        Film film = getFilmById(filmId);
         getUserById(userId);
         filmStorage.removeLike(filmId, userId);
+        if (film.getLikes().contains(userId)) {
+            likeChanged(film, userId, -1);
+        }
         log.info("Removed like from filmId={} by userId={}", filmId, userId);
     }
 
+    // The like count sent to the feed is derived from the film read before the change, so concurrent likes of the
+    // same film may briefly report a stale count; the next change or an update of the film corrects it
+    private void likeChanged(Film film, Long userId, int delta) {
+        if (analytics != null) {
+            analytics.likeChanged(film, userId, delta);
+        }
+        if (changeFeed != null) {
+            changeFeed.likeChanged(film.getId(), film.getLikesCount() + delta, delta);
+        }
+    }
+
     public List<Film> getPopularFilms(int count) {
-        List<Film> popularFilms = filmStorage.getPopularFilms(count);
+        List<Film> popularFilms = popularSnapshot != null
+                ? getSnapshotFilms(popularSnapshot.current(), count)
+                : filmStorage.getPopularFilms(count);
         log.info("Returning popular films: {}", popularFilms);
         return popularFilms;
     }
 
+    /**
+     * Age of the ranking behind {@link #getPopularFilms}, empty when popular films are computed on every request.
+     */
+    public Optional<Duration> getPopularFilmsAge() {
+        return popularSnapshot == null ? Optional.empty() : Optional.of(popularSnapshot.current().age());
+    }
+
+    private List<Film> getSnapshotFilms(PopularFilmsSnapshot.Snapshot snapshot, int count) {
+        long[] filmIds = snapshot.filmIds();
+        List<Film> films = new ArrayList<>(Math.max(0, Math.min(count, filmIds.length)));
+        // Films deleted since the snapshot was built are skipped, so the next ids are fetched to fill their places
+        for (int from = 0; from < filmIds.length && films.size() < count; ) {
+            int to = Math.min(filmIds.length, from + Math.min(count - films.size(), InClause.MAX_SIZE));
+            List<Long> batch = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                batch.add(filmIds[i]);
+            }
+            films.addAll(filmStorage.getFilmsByIds(batch));
+            from = to;
+        }
+        return films;
+    }
+
+    /**
+     * Reads every film for the analytics off the startup thread; readiness reports the analytics down until then.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (analytics != null) {
+            rebuildAnalyticsInBackground();
+        }
+    }
+
+    /**
+     * Likes of a deleted user stop counting at once, and which films they were on is not known here, so the
+     * analytics are recomputed; deletions arriving during a rebuild are folded into one more.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChangeCommitted(UserChangeEvent event) {
+        if (analytics != null && event.getType() == UserChangeEvent.Type.DELETED) {
+            rebuildAnalyticsInBackground();
+        }
+    }
+
+    private void rebuildAnalyticsInBackground() {
+        if (!analyticsRebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                analyticsRebuildQueued.set(false);
+                try {
+                    rebuildAnalytics();
+                } catch (RuntimeException e) {
+                    log.warn("Catalog analytics rebuild failed: {}", e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            analyticsRebuildQueued.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Recomputes the catalog analytics from every stored film.
+     *
+     * @return the number of films read
+     */
+    public int rebuildAnalytics() {
+        if (analytics == null) {
+            throw new NotFoundException("Аналитика отключена");
+        }
+        long started = System.nanoTime();
+        List<Film> films = filmStorage.getAllFilms();
+        analytics.rebuild(films);
+        log.info("Rebuilt catalog analytics from {} films in {} ms", films.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return films.size();
+    }
+
+    @EventListener
+    public void onFilmChange(FilmChangeEvent event) {
+        invalidatePopular();
+    }
+
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        if (event.getType() == UserChangeEvent.Type.DELETED) {
+            invalidatePopular();
+        }
+    }
+
+    @EventListener
+    public void onCachesReset(CachesResetEvent event) {
+        invalidatePopular();
+    }
+
+    private void invalidatePopular() {
+        if (filmStorage instanceof CoalescingFilmStorage coalescingStorage) {
+            coalescingStorage.invalidatePopular();
+        }
+    }
+
     private void validateFilm(Film film) {
         if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(EARLIEST_RELEASE_DATE)) {
             throw new ValidationException("Дата релиза не может быть раньше " + EARLIEST_RELEASE_DATE);
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.ReactiveFilmStorage;
+
+import java.util.List;
+
+/**
+ * {@link FilmService} of the reactive web application, with the same validation. Reads go straight to the
+ * database: the in-process caches, statistics and change feed of the servlet stack are not used here.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFilmService {
+    private final ReactiveFilmStorage filmStorage;
+
+    public Mono<Film> addFilm(Film film) {
+        return validateFilm(film)
+                .then(filmStorage.addFilm(film))
+                .doOnNext(added -> log.info("Added film: {}", added));
+    }
+
+    public Mono<Film> updateFilm(Film film) {
+        return validateFilm(film)
+                .then(filmStorage.updateFilm(film))
+                .doOnNext(updated -> log.info("Updated film: {}", updated));
+    }
+
+    public Mono<Void> deleteFilm(long id) {
+        return filmStorage.deleteFilm(id);
+    }
+
+    public Flux<Film> getAllFilms() {
+        return filmStorage.getAllFilms();
+    }
+
+    public Mono<Film> getFilmById(long id) {
+        return filmStorage.getFilmById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Фильм с id=" + id + " не найден")));
+    }
+
+    public Mono<Void> addLike(long filmId, long userId) {
+        return getFilmById(filmId)
+                .flatMap(film -> checkUserExists(userId)
+                        .then(film.getLikes().contains(userId) ? Mono.empty() : filmStorage.addLike(filmId, userId)))
+                .doOnSuccess(ignored -> log.info("Added like to filmId={} by userId={}", filmId, userId));
+    }
+
+    public Mono<Void> removeLike(long filmId, long userId) {
+        return getFilmById(filmId)
+                .then(checkUserExists(userId))
+                .then(filmStorage.removeLike(filmId, userId))
+                .doOnSuccess(ignored -> log.info("Removed like from filmId={} by userId={}", filmId, userId));
+    }
+
+    public Flux<Film> getPopularFilms(int count) {
+        return filmStorage.getPopularFilms(count);
+    }
+
+    private Mono<Void> validateFilm(Film film) {
+        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(FilmService.EARLIEST_RELEASE_DATE)) {
+            return Mono.error(new ValidationException("Дата релиза не может быть раньше "
+                    + FilmService.EARLIEST_RELEASE_DATE));
+        }
+        if (film.getMpa() == null || film.getMpa().getId() == null) {
+            return Mono.error(new ValidationException("MPA-рейтинг обязателен"));
+        }
+        Mono<Void> mpa = filmStorage.mpaExists(film.getMpa().getId())
+                .flatMap(exists -> exists ? Mono.empty()
+                        : Mono.error(new NotFoundException("MPA с id=" + film.getMpa().getId() + " не найден")));
+        if (film.getGenres() == null || film.getGenres().isEmpty()) {
+            return mpa;
+        }
+        List<Long> genreIds = film.getGenres().stream()
+                .map(Genre::getId)
+                .distinct()
+                .toList();
+        Mono<Void> genres = filmStorage.findGenreIds(genreIds)
+                .collectList()
+                .flatMap(found -> found.size() == genreIds.size() ? Mono.empty()
+                        : Mono.error(new NotFoundException("Жанры с id=" + genreIds.stream()
+                                .filter(id -> !found.contains(id))
+                                .toList() + " не найдены")));
+        return mpa.then(genres);
+    }
+
+    private Mono<Void> checkUserExists(long userId) {
+        return filmStorage.userExists(userId)
+                .flatMap(exists -> exists ? Mono.empty()
+                        : Mono.error(new NotFoundException("Пользователь с id=" + userId + " не найден")));
+    }
+}
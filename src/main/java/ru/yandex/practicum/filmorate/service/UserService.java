@@ -1,23 +1,62 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.analytics.CatalogAnalytics;
+import ru.yandex.practicum.filmorate.eventlog.EventLog;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.stats.ActivityStats;
+import ru.yandex.practicum.filmorate.storage.InClause;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
+import ru.yandex.practicum.filmorate.storage.user.CoalescingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.EventSourcedUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Service
 public class UserService {
+    public static final int MAX_FRIENDS_PAGE = 1000;
+    public static final int MAX_PATH_DEPTH = 10;
+
     private final UserStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final ActivityStats activityStats;
+    private final CatalogAnalytics analytics;
+    private final PurgeWorker purgeWorker;
 
     @Autowired
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage) {
-        this.userStorage = userStorage;
+    public UserService(Map<String, UserStorage> userStorages,
+                       @Value("${filmorate.storage.users:userDbStorage}") String userStorageName,
+                       @Value("${filmorate.storage.coalescing.enabled:true}") boolean coalescing,
+                       ObjectProvider<EventLog> eventLog,
+                       FriendGraph friendGraph,
+                       ObjectProvider<ActivityStats> activityStats,
+                       ObjectProvider<CatalogAnalytics> analytics,
+                       ObjectProvider<PurgeWorker> purgeWorker) {
+        this.friendGraph = friendGraph;
+        this.activityStats = activityStats.getIfAvailable();
+        this.analytics = analytics.getIfAvailable();
+        UserStorage userStorage = userStorages.get(userStorageName);
+        if (userStorage == null) {
+            throw new IllegalStateException("Хранилище пользователей '" + userStorageName + "' не найдено, доступны: "
+                    + userStorages.keySet());
+        }
+        this.purgeWorker = userStorage instanceof UserDbStorage ? purgeWorker.getIfAvailable() : null;
+        UserStorage selected = eventLog.getIfAvailable() != null
+                ? new EventSourcedUserStorage(userStorage, eventLog.getObject())
+                : userStorage;
+        this.userStorage = coalescing ? new CoalescingUserStorage(selected) : selected;
     }
 
     public User addUser(User user) {
@@ -35,12 +74,37 @@ public class UserService {
         return updatedUser;
     }
 
+    /**
+     * @return the purge job when the user was tombstoned and their friendships and likes are being removed in the
+     * background
+     */
+    public Optional<PurgeWorker.Job> deleteUser(Long id) {
+        getUserById(id);
+        Optional<PurgeWorker.Job> job = Optional.empty();
+        if (purgeWorker != null) {
+            job = Optional.of(purgeWorker.deleteUser(id));
+        } else {
+            userStorage.deleteUser(id);
+        }
+        log.info("Deleted user {}", id);
+        return job;
+    }
+
     public List<User> getAllUsers() {
         List<User> users = userStorage.getAllUsers();
         log.info("Returning all users: {}", users);
         return users;
     }
 
+    public List<User> getUsersByIds(List<Long> ids) {
+        if (ids.size() > InClause.MAX_SIZE) {
+            throw new ValidationException("Можно запросить не больше " + InClause.MAX_SIZE + " пользователей за раз");
+        }
+        List<User> users = userStorage.getUsersByIds(ids);
+        log.info("Returning {} of {} requested users", users.size(), ids.size());
+        return users;
+    }
+
     public User getUserById(Long id) {
         User user = userStorage.getUserById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id=" + id + " не найден"));
@@ -54,10 +118,23 @@ public class UserService {
         }
         getUserById(userId);
         getUserById(friendId);
+        boolean created = activityStats != null && !isFriend(userId, friendId);
         userStorage.addFriend(userId, friendId);
+        if (created) {
+            activityStats.recordFriendship(userId, friendId);
+        }
+        if (analytics != null) {
+            analytics.userActive(userId);
+        }
         log.info("User {} added friend {}", userId, friendId);
     }
 
+    // The first friend after friendId - 1 is friendId itself if they are friends
+    private boolean isFriend(Long userId, Long friendId) {
+        return userStorage.getFriends(userId, friendId - 1, 1).stream()
+                .anyMatch(friend -> friend.getId().equals(friendId));
+    }
+
     public void removeFriend(Long userId, Long friendId) {
         if (userId.equals(friendId)) {
             throw new IllegalArgumentException("Пользователь не может удалить себя из друзей");
@@ -81,4 +158,59 @@ public class UserService {
         log.info("Returning common friends between user {} and user {}: {}", userId, otherId, commonFriends);
         return commonFriends;
     }
-}
\ No newline at end of file
+
+    public List<User> getFriends(Long userId, Long afterId, int limit) {
+        if (limit < 1 || limit > MAX_FRIENDS_PAGE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_FRIENDS_PAGE);
+        }
+        getUserById(userId);
+        List<User> friends = userStorage.getFriends(userId, afterId, limit);
+        log.info("Returning {} friends of user {} after id {}", friends.size(), userId, afterId);
+        return friends;
+    }
+
+    public int getFriendCount(Long userId) {
+        getUserById(userId);
+        return userStorage.getFriendCount(userId);
+    }
+
+    public List<User> getCommonFriends(List<Long> userIds) {
+        List<Long> distinct = userIds.stream().distinct().toList();
+        if (distinct.size() < 2 || distinct.size() > InClause.MAX_SIZE) {
+            throw new ValidationException("Нужно указать от 2 до " + InClause.MAX_SIZE + " разных пользователей");
+        }
+        distinct.forEach(this::getUserById);
+        List<User> commonFriends = userStorage.getCommonFriends(distinct);
+        log.info("Returning common friends of users {}: {}", distinct, commonFriends);
+        return commonFriends;
+    }
+
+    public List<User> getPath(Long userId, Long otherId, int maxDepth) {
+        if (maxDepth < 1 || maxDepth > MAX_PATH_DEPTH) {
+            throw new ValidationException("Глубина поиска должна быть от 1 до " + MAX_PATH_DEPTH);
+        }
+        getUserById(userId);
+        getUserById(otherId);
+        List<Long> path;
+        try {
+            path = friendGraph.shortestPath(userId, otherId, maxDepth);
+        } catch (FriendGraph.BudgetExceededException e) {
+            throw new NotFoundException("Цепочка друзей между пользователями " + userId + " и " + otherId
+                    + " не найдена: " + e.getMessage());
+        }
+        if (path.isEmpty()) {
+            throw new NotFoundException("Цепочка друзей между пользователями " + userId + " и " + otherId
+                    + " длиной не больше " + maxDepth + " не найдена");
+        }
+        log.info("Returning path of {} friendships from user {} to user {}", path.size() - 1, userId, otherId);
+        return userStorage.getUsersByIds(path);
+    }
+
+    public FriendGraph.Reach getReach(Long userId, int depth) {
+        if (depth < 1 || depth > MAX_PATH_DEPTH) {
+            throw new ValidationException("Глубина поиска должна быть от 1 до " + MAX_PATH_DEPTH);
+        }
+        getUserById(userId);
+        return friendGraph.reach(userId, depth);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Approximate like and friendship statistics over a sliding window. Writes go to the sketches of the current time
+ * bucket; a ring of {@code retention / bucket} buckets is allocated up front and reused, so memory stays fixed
+ * however many users and films are seen. A query merges the buckets that cover the window, which therefore spans
+ * whole buckets: between {@code window - bucket} and {@code window} back from now.
+ */
+public class ActivityStats {
+    private final long bucketMillis;
+    private final Bucket[] ring;
+    private final int hllPrecision;
+    private final int cmsWidth;
+    private final int cmsDepth;
+    private final int topCapacity;
+    private final Clock clock;
+
+    public ActivityStats(Duration bucket, Duration retention, int hllPrecision, int cmsWidth, int cmsDepth,
+                         int topCapacity, Clock clock) {
+        if (bucket.isNegative() || bucket.isZero() || retention.compareTo(bucket) < 0) {
+            throw new IllegalArgumentException("bucket must be positive and not longer than retention");
+        }
+        this.bucketMillis = bucket.toMillis();
+        this.hllPrecision = hllPrecision;
+        this.cmsWidth = cmsWidth;
+        this.cmsDepth = cmsDepth;
+        this.topCapacity = topCapacity;
+        this.clock = clock;
+        this.ring = new Bucket[(int) ((retention.toMillis() + bucketMillis - 1) / bucketMillis)];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Bucket();
+        }
+    }
+
+    public record Summary(Duration window, long likes, long likingUsers, long friendships, long befriendingUsers) {
+    }
+
+    public void recordLike(long filmId, long userId) {
+        long epoch = clock.millis() / bucketMillis;
+        Bucket bucket = ring[(int) (epoch % ring.length)];
+        synchronized (bucket) {
+            bucket.roll(epoch);
+            bucket.likes++;
+            bucket.likingUsers.add(userId);
+            bucket.filmLikes.add(filmId, 1);
+            bucket.topFilms.add(filmId, 1);
+        }
+    }
+
+    public void recordFriendship(long userId, long friendId) {
+        long epoch = clock.millis() / bucketMillis;
+        Bucket bucket = ring[(int) (epoch % ring.length)];
+        synchronized (bucket) {
+            bucket.roll(epoch);
+            bucket.friendships++;
+            bucket.befriendingUsers.add(userId);
+        }
+    }
+
+    public Summary summary(Duration window) {
+        Bucket merged = merge(window);
+        return new Summary(window, merged.likes, merged.likingUsers.estimate(), merged.friendships,
+                merged.befriendingUsers.estimate());
+    }
+
+    public long filmLikes(long filmId, Duration window) {
+        return merge(window).filmLikes.estimate(filmId);
+    }
+
+    public List<SpaceSaving.Entry> topFilms(int count, Duration window) {
+        return merge(window).topFilms.top(count);
+    }
+
+    public Duration retention() {
+        return Duration.ofMillis(bucketMillis * ring.length);
+    }
+
+    public int topCapacity() {
+        return topCapacity;
+    }
+
+    /**
+     * Approximate memory held by the sketches of all buckets.
+     */
+    public long sizeInBytes() {
+        Bucket bucket = ring[0];
+        return (long) ring.length * (2L * bucket.likingUsers.sizeInBytes() + bucket.filmLikes.sizeInBytes()
+                + topCapacity * 64L);
+    }
+
+    private Bucket merge(Duration window) {
+        long buckets = Math.min(ring.length, Math.max(1, (window.toMillis() + bucketMillis - 1) / bucketMillis));
+        long now = clock.millis() / bucketMillis;
+        Bucket merged = new Bucket();
+        for (long epoch = now - buckets + 1; epoch <= now; epoch++) {
+            Bucket bucket = ring[(int) Math.floorMod(epoch, (long) ring.length)];
+            synchronized (bucket) {
+                if (bucket.epoch == epoch) {
+                    merged.merge(bucket);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private final class Bucket {
+        long epoch = -1;
+        long likes;
+        long friendships;
+        final HyperLogLog likingUsers = new HyperLogLog(hllPrecision);
+        final HyperLogLog befriendingUsers = new HyperLogLog(hllPrecision);
+        final CountMinSketch filmLikes = new CountMinSketch(cmsWidth, cmsDepth);
+        final SpaceSaving topFilms = new SpaceSaving(topCapacity);
+
+        // A bucket left from an earlier turn of the ring is cleared before the first write of its new period
+        void roll(long epoch) {
+            if (this.epoch == epoch) {
+                return;
+            }
+            this.epoch = epoch;
+            likes = 0;
+            friendships = 0;
+            likingUsers.clear();
+            befriendingUsers.clear();
+            filmLikes.clear();
+            topFilms.clear();
+        }
+
+        void merge(Bucket other) {
+            likes += other.likes;
+            friendships += other.friendships;
+            likingUsers.merge(other.likingUsers);
+            befriendingUsers.merge(other.befriendingUsers);
+            filmLikes.merge(other.filmLikes);
+            topFilms.merge(other.topFilms);
+        }
+    }
+}
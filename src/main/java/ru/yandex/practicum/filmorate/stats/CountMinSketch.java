@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import java.util.Arrays;
+
+/**
+ * Per-key counts in {@code depth} rows of {@code width} counters. An estimate never undercounts and overcounts by
+ * at most {@code e / width} of the total with probability {@code 1 - e^-depth}. Sketches of the same shape merge
+ * by adding counters. Not thread-safe.
+ */
+public final class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (Integer.bitCount(width) != 1 || depth < 1) {
+            throw new IllegalArgumentException("width must be a power of two and depth positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    public void add(long key, long count) {
+        long hash = Hashing.mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + ((h1 + row * h2) & (width - 1))] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(long key) {
+        long hash = Hashing.mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + ((h1 + row * h2) & (width - 1))]);
+        }
+        return min;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge sketches of different shape");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0);
+        total = 0;
+    }
+
+    public int sizeInBytes() {
+        return counters.length * Long.BYTES;
+    }
+}
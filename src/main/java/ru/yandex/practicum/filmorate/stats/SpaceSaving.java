@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heavy hitters kept in at most {@code capacity} counters. A new key replaces the smallest counter and inherits
+ * its count as {@link Entry#error()}, so every key seen more than {@code total / capacity} times is in the summary
+ * and its count is overestimated by no more than its error. Not thread-safe.
+ */
+public final class SpaceSaving {
+    private final int capacity;
+    private final Map<Long, long[]> counters;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public record Entry(long key, long count, long error) {
+    }
+
+    public void add(long key, long count) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{count, 0});
+            return;
+        }
+        long minKey = minKey();
+        long[] min = counters.remove(minKey);
+        counters.put(key, new long[]{min[0] + count, min[0]});
+    }
+
+    /**
+     * Keys by count, largest first.
+     */
+    public List<Entry> top(int count) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> entries.add(new Entry(key, counter[0], counter[1])));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparingLong(Entry::key));
+        return entries.subList(0, Math.min(count, entries.size()));
+    }
+
+    /**
+     * Adds the counters of {@code other} as in the mergeable summaries of Agarwal et al.: a key missing from a full
+     * summary may have been evicted from it, so it is counted there at that summary's smallest count, and only the
+     * {@code capacity} largest results are kept.
+     */
+    public void merge(SpaceSaving other) {
+        long ownFloor = floor();
+        long otherFloor = other.floor();
+        Map<Long, long[]> merged = new HashMap<>(counters.size() + other.counters.size());
+        counters.forEach((key, counter) -> {
+            long[] theirs = other.counters.get(key);
+            merged.put(key, theirs != null
+                    ? new long[]{counter[0] + theirs[0], counter[1] + theirs[1]}
+                    : new long[]{counter[0] + otherFloor, counter[1] + otherFloor});
+        });
+        other.counters.forEach((key, counter) -> {
+            if (!counters.containsKey(key)) {
+                merged.put(key, new long[]{counter[0] + ownFloor, counter[1] + ownFloor});
+            }
+        });
+        counters.clear();
+        merged.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> e) -> e.getValue()[0]).reversed())
+                .limit(capacity)
+                .forEach(e -> counters.put(e.getKey(), e.getValue()));
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private long floor() {
+        return counters.size() < capacity ? 0 : counters.get(minKey())[0];
+    }
+
+    private long minKey() {
+        long minKey = 0;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<Long, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < minCount) {
+                minCount = entry.getValue()[0];
+                minKey = entry.getKey();
+            }
+        }
+        return minKey;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Marks JDBC work on the current thread as read-only so that a routing DataSource may serve it from a replica.
+ * The sticky keys name the entities being read (e.g. {@code "user:42"}); reads involving any recently written key
+ * stay on the primary, as does everything inside {@link #primary}. Without a routing DataSource the marker has no
+ * effect.
+ */
+public final class DataSourceRoute {
+    private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+    private static final Route PRIMARY = new Route(false, List.of());
+
+    private DataSourceRoute() {
+    }
+
+    private record Route(boolean read, List<String> stickyKeys) {
+    }
+
+    public static <T> T read(List<String> stickyKeys, Supplier<T> action) {
+        if (ROUTE.get() != null) {
+            return action.get();
+        }
+        return route(new Route(true, List.copyOf(stickyKeys)), action);
+    }
+
+    public static <T> T read(String stickyKey, Supplier<T> action) {
+        return read(stickyKey == null ? List.of() : List.of(stickyKey), action);
+    }
+
+    public static <T> T read(Supplier<T> action) {
+        return read(List.of(), action);
+    }
+
+    /**
+     * Keeps the reads nested in {@code action}, such as validation done as part of a write, on the primary.
+     */
+    public static <T> T primary(Supplier<T> action) {
+        if (ROUTE.get() == PRIMARY) {
+            return action.get();
+        }
+        Route previous = ROUTE.get();
+        ROUTE.set(PRIMARY);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                ROUTE.remove();
+            } else {
+                ROUTE.set(previous);
+            }
+        }
+    }
+
+    public static boolean isRead() {
+        Route route = ROUTE.get();
+        return route != null && route.read();
+    }
+
+    public static List<String> stickyKeys() {
+        Route route = ROUTE.get();
+        return route == null ? List.of() : route.stickyKeys();
+    }
+
+    /**
+     * Carries the current route over to a task that runs on another thread.
+     */
+    public static Runnable propagate(Runnable task) {
+        Route route = ROUTE.get();
+        if (route == null) {
+            return task;
+        }
+        return () -> route(route, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static <T> T route(Route route, Supplier<T> action) {
+        ROUTE.set(route);
+        try {
+            return action.get();
+        } finally {
+            ROUTE.remove();
+        }
+    }
+}
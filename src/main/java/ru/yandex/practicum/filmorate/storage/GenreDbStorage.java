@@ -3,16 +3,19 @@ package ru.yandex.practicum.filmorate.storage;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.event.GenreChangeEvent;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -22,10 +25,11 @@ import java.util.Optional;
 public class GenreDbStorage {
     private static final Logger log = LoggerFactory.getLogger(GenreDbStorage.class);
     private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Genre> getAllGenres() {
         String sql = "SELECT * FROM genres ORDER BY id";
-        List<Genre> genres = jdbcTemplate.query(sql, this::mapRowToGenre);
+        List<Genre> genres = DataSourceRoute.read("genres", () -> jdbcTemplate.query(sql, this::mapRowToGenre));
         log.info("Retrieved all genres: {}", genres);
         return genres;
     }
@@ -33,7 +37,7 @@ public class GenreDbStorage {
     public Optional<Genre> getGenreById(Long id) {
         String sql = "SELECT * FROM genres WHERE id = ?";
         try {
-            List<Genre> genres = jdbcTemplate.query(sql, this::mapRowToGenre, id);
+            List<Genre> genres = DataSourceRoute.read("genres", () -> jdbcTemplate.query(sql, this::mapRowToGenre, id));
             if (genres.isEmpty()) {
                 log.info("Genre with id {} not found", id);
                 return Optional.empty();
@@ -50,10 +54,13 @@ public class GenreDbStorage {
         if (ids == null || ids.isEmpty()) {
             return Collections.emptyList();
         }
-        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
-        String sql = String.format("SELECT * FROM genres WHERE id IN (%s)", inSql);
         try {
-            List<Genre> genres = jdbcTemplate.query(sql, this::mapRowToGenre, ids.toArray());
+            List<Genre> genres = new ArrayList<>(ids.size());
+            for (List<Long> batch : InClause.batches(ids)) {
+                String sql = "SELECT * FROM genres WHERE id IN (" + InClause.placeholders(batch.size()) + ")";
+                genres.addAll(DataSourceRoute.read("genres",
+                        () -> jdbcTemplate.query(sql, this::mapRowToGenre, InClause.args(batch))));
+            }
             log.info("Retrieved genres for ids {}: {}", ids, genres);
             return genres;
         } catch (Exception e) {
@@ -73,6 +80,7 @@ public class GenreDbStorage {
             }, keyHolder);
             Long generatedId = keyHolder.getKey().longValue();
             genre.setId(generatedId);
+            eventPublisher.publishEvent(new GenreChangeEvent(generatedId));
             log.info("Created genre: {}", genre);
             return genre;
         } catch (Exception e) {
@@ -89,6 +97,7 @@ public class GenreDbStorage {
                 log.info("Genre with id {} not found for update", genre.getId());
                 throw new NotFoundException("Жанр с id=" + genre.getId() + " не найден");
             }
+            eventPublisher.publishEvent(new GenreChangeEvent(genre.getId()));
             log.info("Updated genre: {}", genre);
             return genre;
         } catch (Exception e) {
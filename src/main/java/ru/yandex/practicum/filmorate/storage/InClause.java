@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds IN-lists with a fixed set of SQL shapes: the number of placeholders is rounded up to a power of two
+ * and the tail is padded with the last id, so statement and plan caches only ever see ten distinct strings per
+ * query. Larger id lists are split into batches of {@link #MAX_SIZE}.
+ */
+public final class InClause {
+    public static final int MAX_SIZE = 512;
+
+    private static final String[] PLACEHOLDERS = new String[Integer.numberOfTrailingZeros(MAX_SIZE) + 1];
+
+    static {
+        for (int i = 0; i < PLACEHOLDERS.length; i++) {
+            PLACEHOLDERS[i] = String.join(",", Collections.nCopies(1 << i, "?"));
+        }
+    }
+
+    private InClause() {
+    }
+
+    public static int bucketSize(int count) {
+        if (count < 1 || count > MAX_SIZE) {
+            throw new IllegalArgumentException("IN-list size must be between 1 and " + MAX_SIZE + ": " + count);
+        }
+        return count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    public static String placeholders(int count) {
+        return PLACEHOLDERS[Integer.numberOfTrailingZeros(bucketSize(count))];
+    }
+
+    public static Object[] args(List<?> ids) {
+        Object[] args = new Object[bucketSize(ids.size())];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = ids.get(Math.min(i, ids.size() - 1));
+        }
+        return args;
+    }
+
+    public static <T> List<List<T>> batches(List<T> ids) {
+        if (ids.size() <= MAX_SIZE) {
+            return List.of(ids);
+        }
+        List<List<T>> batches = new ArrayList<>((ids.size() + MAX_SIZE - 1) / MAX_SIZE);
+        for (int from = 0; from < ids.size(); from += MAX_SIZE) {
+            batches.add(ids.subList(from, Math.min(from + MAX_SIZE, ids.size())));
+        }
+        return batches;
+    }
+}
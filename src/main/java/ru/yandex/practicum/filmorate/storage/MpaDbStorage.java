@@ -17,12 +17,12 @@ public class MpaDbStorage {
 
     public List<Mpa> getAllMpa() {
         String sql = "SELECT * FROM mpa_ratings";
-        return jdbcTemplate.query(sql, this::mapRowToMpa);
+        return DataSourceRoute.read(() -> jdbcTemplate.query(sql, this::mapRowToMpa));
     }
 
     public Optional<Mpa> getMpaById(Long id) {
         String sql = "SELECT * FROM mpa_ratings WHERE id = ?";
-        List<Mpa> mpaList = jdbcTemplate.query(sql, this::mapRowToMpa, id);
+        List<Mpa> mpaList = DataSourceRoute.read(() -> jdbcTemplate.query(sql, this::mapRowToMpa, id));
         return mpaList.isEmpty() ? Optional.empty() : Optional.of(mpaList.get(0));
     }
 
@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Deletes films and users in two phases. The delete itself only sets {@code deleted_at}, which hides the row from
+ * every read, and records a job in {@code purge_jobs}. The worker then removes the dependent {@code film_likes}
+ * and {@code user_friends} rows in chunks of {@code chunkSize}, one short transaction per chunk and one chunk per
+ * scheduled run, and finally deletes the row itself. Jobs survive restarts and are resumed in creation order.
+ * <p>
+ * Likes of a tombstoned user are skipped by reads until they are purged, and they are purged first. Users who
+ * befriended them lose the friend from their {@code friend_count} with the tombstone.
+ */
+@Slf4j
+public class PurgeWorker {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public PurgeWorker(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                       ApplicationEventPublisher eventPublisher, int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public enum Entity { FILM, USER }
+
+    public record Job(long id, Entity entity, long entityId, long rowsTotal, long rowsPurged,
+                      LocalDateTime createdAt, LocalDateTime finishedAt) {
+    }
+
+    public Job deleteFilm(long filmId) {
+        Job job = transactionTemplate.execute(status -> {
+            tombstone("films", filmId, "Фильм с id=" + filmId + " не найден");
+            long rows = count("SELECT COUNT(*) FROM film_likes WHERE film_id = ?", filmId);
+            return createJob(Entity.FILM, filmId, rows);
+        });
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, filmId));
+        log.info("Film {} tombstoned, purge job {} will remove {} rows", filmId, job.id(), job.rowsTotal());
+        return job;
+    }
+
+    public Job deleteUser(long userId) {
+        Job job = transactionTemplate.execute(status -> {
+            tombstone("users", userId, "Пользователь с id=" + userId + " не найден");
+            jdbcTemplate.update("UPDATE users SET friend_count = friend_count - 1 " +
+                    "WHERE id IN (SELECT user_id FROM user_friends WHERE friend_id = ?)", userId);
+            long rows = count("SELECT COUNT(*) FROM user_friends WHERE user_id = ?", userId)
+                    + count("SELECT COUNT(*) FROM user_friends WHERE friend_id = ?", userId)
+                    + count("SELECT COUNT(*) FROM film_likes WHERE user_id = ?", userId);
+            return createJob(Entity.USER, userId, rows);
+        });
+        eventPublisher.publishEvent(UserChangeEvent.of(UserChangeEvent.Type.DELETED, userId));
+        log.info("User {} tombstoned, purge job {} will remove {} rows", userId, job.id(), job.rowsTotal());
+        return job;
+    }
+
+    public Optional<Job> getJob(long id) {
+        return jdbcTemplate.query("SELECT * FROM purge_jobs WHERE id = ?", this::mapRowToJob, id).stream()
+                .findFirst();
+    }
+
+    public List<Job> getUnfinishedJobs() {
+        return jdbcTemplate.query("SELECT * FROM purge_jobs WHERE finished_at IS NULL ORDER BY id",
+                this::mapRowToJob);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.purge.delay:PT0.1S}")
+    public void purge() {
+        purgeChunk();
+    }
+
+    /**
+     * Removes one chunk of rows for the oldest unfinished job.
+     *
+     * @return {@code false} if there was nothing left to purge
+     */
+    public boolean purgeChunk() {
+        List<Job> next = jdbcTemplate.query("SELECT * FROM purge_jobs WHERE finished_at IS NULL ORDER BY id LIMIT 1",
+                this::mapRowToJob);
+        if (next.isEmpty()) {
+            return false;
+        }
+        Job job = next.get(0);
+        transactionTemplate.executeWithoutResult(status -> {
+            int purged = job.entity() == Entity.FILM ? purgeFilmChunk(job.entityId()) : purgeUserChunk(job.entityId());
+            if (purged > 0) {
+                jdbcTemplate.update("UPDATE purge_jobs SET rows_purged = rows_purged + ? WHERE id = ?", purged,
+                        job.id());
+                return;
+            }
+            jdbcTemplate.update(job.entity() == Entity.FILM
+                    ? "DELETE FROM films WHERE id = ?" : "DELETE FROM users WHERE id = ?", job.entityId());
+            jdbcTemplate.update("UPDATE purge_jobs SET finished_at = ? WHERE id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), job.id());
+            log.info("Purge job {} finished: {} {} removed with {} dependent rows", job.id(), job.entity(),
+                    job.entityId(), job.rowsPurged());
+        });
+        return true;
+    }
+
+    private int purgeFilmChunk(long filmId) {
+        return jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ? AND user_id IN " +
+                "(SELECT user_id FROM film_likes WHERE film_id = ? ORDER BY user_id LIMIT ?)",
+                filmId, filmId, chunkSize);
+    }
+
+    private int purgeUserChunk(long userId) {
+        int purged = jdbcTemplate.update("DELETE FROM film_likes WHERE user_id = ? AND film_id IN " +
+                "(SELECT film_id FROM film_likes WHERE user_id = ? ORDER BY film_id LIMIT ?)",
+                userId, userId, chunkSize);
+        if (purged > 0) {
+            return purged;
+        }
+        purged = jdbcTemplate.update("DELETE FROM user_friends WHERE user_id = ? AND friend_id IN " +
+                "(SELECT friend_id FROM user_friends WHERE user_id = ? ORDER BY friend_id LIMIT ?)",
+                userId, userId, chunkSize);
+        if (purged > 0) {
+            return purged;
+        }
+        return jdbcTemplate.update("DELETE FROM user_friends WHERE friend_id = ? AND user_id IN " +
+                "(SELECT user_id FROM user_friends WHERE friend_id = ? ORDER BY user_id LIMIT ?)",
+                userId, userId, chunkSize);
+    }
+
+    private void tombstone(String table, long id, String notFound) {
+        int updated = jdbcTemplate.update("UPDATE " + table + " SET deleted_at = ? WHERE id = ? AND deleted_at IS NULL",
+                Timestamp.valueOf(LocalDateTime.now()), id);
+        if (updated == 0) {
+            throw new NotFoundException(notFound);
+        }
+    }
+
+    private long count(String sql, long id) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, id);
+        return count == null ? 0 : count;
+    }
+
+    private Job createJob(Entity entity, long entityId, long rowsTotal) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO purge_jobs " +
+                    "(entity, entity_id, rows_total, created_at) VALUES (?, ?, ?, ?)", new String[]{"id"});
+            ps.setString(1, entity.name());
+            ps.setLong(2, entityId);
+            ps.setLong(3, rowsTotal);
+            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            return ps;
+        }, keyHolder);
+        return getJob(keyHolder.getKey().longValue()).orElseThrow();
+    }
+
+    private Job mapRowToJob(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        return new Job(rs.getLong("id"), Entity.valueOf(rs.getString("entity")), rs.getLong("entity_id"),
+                rs.getLong("rows_total"), rs.getLong("rows_purged"), rs.getTimestamp("created_at").toLocalDateTime(),
+                finishedAt == null ? null : finishedAt.toLocalDateTime());
+    }
+}
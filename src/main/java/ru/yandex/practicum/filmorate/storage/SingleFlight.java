@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time: callers that arrive while a load is in flight wait for it and get the
+ * same result (or exception) instead of issuing their own query. Results are shared, so callers must not mutate them.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V run(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Batch form of {@link #run}: keys already being loaded are joined, the rest are loaded with one
+     * {@code loader} call, which must return a value for every key it is given. Single-key callers arriving
+     * meanwhile join the batch for their key.
+     */
+    public Map<K, V> runAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> joined = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (joined.containsKey(key) || owned.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+            if (existing != null) {
+                joined.put(key, existing);
+            } else {
+                owned.put(key, call);
+            }
+        }
+        Map<K, V> values = new HashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(new ArrayList<>(owned.keySet()));
+                owned.forEach((key, call) -> {
+                    V value = loaded.get(key);
+                    call.complete(value);
+                    values.put(key, value);
+                });
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(call -> call.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+        joined.forEach((key, call) -> values.put(key, join(call)));
+        return values;
+    }
+
+    /**
+     * Detaches the in-flight load of the key, so callers arriving after a write start a fresh one.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    private static <V> V join(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Compact binary snapshot of an in-memory storage. A snapshot is written to a temporary file through a direct
+ * buffer, forced to disk and atomically moved over the previous one; it is read back through a read-only mapping.
+ */
+public final class SnapshotFile {
+    private static final int MAGIC = 0x464D534E;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private SnapshotFile() {
+    }
+
+    public static void write(Path file, int version, Body<Writer> body) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(version);
+            body.accept(writer);
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return {@code false} if there is no snapshot yet
+     */
+    public static boolean read(Path file, int version, Body<Reader> body) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Снимок " + file + " больше 2 ГБ");
+            }
+            Reader reader = new Reader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (reader.getInt() != MAGIC || reader.getInt() != version) {
+                throw new IllegalStateException("Файл " + file + " не является снимком версии " + version);
+            }
+            body.accept(reader);
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Body<T> {
+        void accept(T t) throws IOException;
+    }
+
+    public static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        public void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        public void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        public void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        public void putDate(LocalDate value) throws IOException {
+            putLong(value == null ? Long.MIN_VALUE : value.toEpochDay());
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    public static final class Reader {
+        private final MappedByteBuffer buffer;
+
+        private Reader(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int getInt() {
+            return buffer.getInt();
+        }
+
+        public long getLong() {
+            return buffer.getLong();
+        }
+
+        public String getString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public LocalDate getDate() {
+            long value = buffer.getLong();
+            return value == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(value);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.SingleFlight;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Decorator that lets identical concurrent reads share one delegate call. Popular lists are additionally kept
+ * between calls: after {@link #invalidatePopular()} the previous list is still served for up to {@code maxStale}
+ * while a single background refresh per count replaces it; {@code onPopularRefreshed} is called with the count after
+ * each such refresh. Shared and kept films are never handed out themselves: every caller gets its own copies.
+ */
+@Slf4j
+public class CoalescingFilmStorage implements FilmStorage {
+    static final int MAX_KEPT_POPULAR_COUNT = 100;
+
+    private final FilmStorage delegate;
+    private final long maxStaleNanos;
+    private final Executor executor;
+    private final IntConsumer onPopularRefreshed;
+
+    private final SingleFlight<Long, Optional<Film>> byId = new SingleFlight<>();
+    private final SingleFlight<Boolean, List<Film>> all = new SingleFlight<>();
+    private final SingleFlight<Integer, List<Film>> popular = new SingleFlight<>();
+    private final ConcurrentMap<Integer, PopularEntry> popularEntries = new ConcurrentHashMap<>();
+    private final Set<Integer> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+
+    public CoalescingFilmStorage(FilmStorage delegate, Duration maxStale, Executor executor,
+                                 IntConsumer onPopularRefreshed) {
+        this.delegate = delegate;
+        this.maxStaleNanos = maxStale.toNanos();
+        this.executor = executor;
+        this.onPopularRefreshed = onPopularRefreshed;
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Film added = delegate.addFilm(film);
+        all.forgetAll();
+        return added;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        Film updated = delegate.updateFilm(film);
+        byId.forget(film.getId());
+        all.forgetAll();
+        return updated;
+    }
+
+    @Override
+    public void deleteFilm(Long id) {
+        delegate.deleteFilm(id);
+        byId.forget(id);
+        all.forgetAll();
+    }
+
+    @Override
+    public Optional<Film> getFilmById(Long id) {
+        return byId.run(id, () -> delegate.getFilmById(id)).map(CoalescingFilmStorage::copy);
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        return copies(all.run(Boolean.TRUE, delegate::getAllFilms));
+    }
+
+    /**
+     * Shares per-id loads with {@link #getFilmById}: ids already being loaded are joined and only the rest go to
+     * the delegate, in one call. Null ids match no film and are skipped.
+     */
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        List<Long> requested = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Optional<Film>> films = byId.runAll(requested, missing -> {
+            Map<Long, Optional<Film>> loaded = new HashMap<>();
+            missing.forEach(id -> loaded.put(id, Optional.empty()));
+            delegate.getFilmsByIds(missing).forEach(film -> loaded.put(film.getId(), Optional.of(film)));
+            return loaded;
+        });
+        return requested.stream()
+                .map(films::get)
+                .flatMap(Optional::stream)
+                .map(CoalescingFilmStorage::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        delegate.addLike(filmId, userId);
+        byId.forget(filmId);
+        all.forgetAll();
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        delegate.removeLike(filmId, userId);
+        byId.forget(filmId);
+        all.forgetAll();
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        if (count <= 0 || count > MAX_KEPT_POPULAR_COUNT) {
+            return copies(popular.run(count, () -> delegate.getPopularFilms(count)));
+        }
+        PopularEntry entry = popularEntries.get(count);
+        if (entry != null) {
+            long staleSince = entry.staleSince.get();
+            if (staleSince == 0) {
+                return copies(entry.films);
+            }
+            if (System.nanoTime() - staleSince <= maxStaleNanos) {
+                refreshInBackground(count);
+                return copies(entry.films);
+            }
+        }
+        return copies(loadPopular(count));
+    }
+
+    /**
+     * Marks every kept popular list as stale; called when likes or films change.
+     */
+    public void invalidatePopular() {
+        generation.incrementAndGet();
+        long now = System.nanoTime();
+        for (PopularEntry entry : popularEntries.values()) {
+            entry.staleSince.compareAndSet(0, now);
+        }
+        popular.forgetAll();
+    }
+
+    private List<Film> loadPopular(int count) {
+        return popular.run(count, () -> {
+            long loadedGeneration = generation.get();
+            List<Film> films = delegate.getPopularFilms(count);
+            PopularEntry entry = new PopularEntry(films);
+            if (generation.get() != loadedGeneration) {
+                entry.staleSince.set(System.nanoTime());
+            }
+            popularEntries.put(count, entry);
+            return films;
+        });
+    }
+
+    private void refreshInBackground(int count) {
+        if (!refreshing.add(count)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    loadPopular(count);
+                    onPopularRefreshed.accept(count);
+                } catch (RuntimeException e) {
+                    log.warn("Popular films refresh for count={} failed: {}", count, e.getMessage());
+                } finally {
+                    refreshing.remove(count);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(count);
+            throw e;
+        }
+    }
+
+    private static List<Film> copies(List<Film> films) {
+        List<Film> copies = new ArrayList<>(films.size());
+        films.forEach(film -> copies.add(copy(film)));
+        return copies;
+    }
+
+    private static Film copy(Film film) {
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getLikes() == null ? new HashSet<>() : new HashSet<>(film.getLikes()),
+                film.getMpa(), film.getGenres() == null ? new ArrayList<>() : new ArrayList<>(film.getGenres()));
+    }
+
+    private static final class PopularEntry {
+        private final List<Film> films;
+        private final AtomicLong staleSince = new AtomicLong();
+
+        private PopularEntry(List<Film> films) {
+            this.films = films;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.eventlog.EventLog;
+import ru.yandex.practicum.filmorate.eventlog.LogEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Records likes in the {@link EventLog} instead of writing them to the delegate; the delegate is brought up to date
+ * by the "films" projection. Reads go to the delegate and may lag behind a like that was just acknowledged.
+ */
+public class EventSourcedFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final EventLog eventLog;
+
+    public EventSourcedFilmStorage(FilmStorage delegate, EventLog eventLog) {
+        this.delegate = delegate;
+        this.eventLog = eventLog;
+        eventLog.project("films", this::apply);
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        return delegate.addFilm(film);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        return delegate.updateFilm(film);
+    }
+
+    @Override
+    public void deleteFilm(Long id) {
+        delegate.deleteFilm(id);
+    }
+
+    @Override
+    public Optional<Film> getFilmById(Long id) {
+        return delegate.getFilmById(id);
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        return delegate.getAllFilms();
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        eventLog.append(LogEvent.Type.LIKE_ADDED, filmId, userId);
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        eventLog.append(LogEvent.Type.LIKE_REMOVED, filmId, userId);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return delegate.getPopularFilms(count);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return delegate.getFilmsByIds(ids);
+    }
+
+    private void apply(LogEvent event) {
+        switch (event.type()) {
+            case LIKE_ADDED -> delegate.addLike(event.subjectId(), event.objectId());
+            case LIKE_REMOVED -> delegate.removeLike(event.subjectId(), event.objectId());
+            default -> {
+            }
+        }
+    }
+}
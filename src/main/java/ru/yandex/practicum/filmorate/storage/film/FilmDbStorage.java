@@ -3,22 +3,27 @@ package ru.yandex.practicum.filmorate.storage.film;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.DataSourceRoute;
 import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.InClause;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Primary
@@ -29,6 +34,8 @@ public class FilmDbStorage implements FilmStorage {
     private static final Logger log = LoggerFactory.getLogger(FilmDbStorage.class);
     private final JdbcTemplate jdbcTemplate;
     private final GenreDbStorage genreDbStorage;
+    private final FilmHydrator filmHydrator;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Film addFilm(Film film) {
@@ -48,14 +55,16 @@ public class FilmDbStorage implements FilmStorage {
 
         Long filmId = keyHolder.getKey().longValue();
         updateGenres(filmId, film.getGenres());
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.CREATED, filmId));
         log.info("Film added with id {}: {}", filmId, film);
-        return getFilmById(filmId).orElseThrow(() -> new NotFoundException("Фильм с id=" + filmId + " не найден после добавления"));
+        return findFilmById(filmId).orElseThrow(() -> new NotFoundException("Фильм с id=" + filmId + " не найден после добавления"));
     }
 
     @Override
     public Film updateFilm(Film film) {
         log.info("Updating film with id {}: {}", film.getId(), film.getName());
-        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
+        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? " +
+                "WHERE id = ? AND deleted_at IS NULL";
 
         int rowsAffected = jdbcTemplate.update(sql,
                 film.getName(),
@@ -72,7 +81,8 @@ public class FilmDbStorage implements FilmStorage {
 
         updateGenres(film.getId(), film.getGenres());
         updateLikes(film.getId(), film.getLikes());
-        return getFilmById(film.getId())
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.UPDATED, film.getId()));
+        return findFilmById(film.getId())
                 .orElseThrow(() -> new NotFoundException("Фильм с id=" + film.getId() + " не найден после обновления"));
     }
 
@@ -85,22 +95,26 @@ public class FilmDbStorage implements FilmStorage {
             log.warn("Film with id {} not found", id);
             throw new NotFoundException("Фильм с id=" + id + " не найден");
         }
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, id));
         log.info("Film with id {} deleted", id);
     }
 
     @Override
     public Optional<Film> getFilmById(Long id) {
+        return DataSourceRoute.read("film:" + id, () -> findFilmById(id));
+    }
+
+    private Optional<Film> findFilmById(Long id) {
         log.info("Retrieving film with id {}", id);
         String sql = "SELECT f.*, m.name AS mpa_name " +
                 "FROM films f " +
                 "JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "WHERE f.id = ?";
+                "WHERE f.id = ? AND f.deleted_at IS NULL";
 
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, id);
         Film film = films.isEmpty() ? null : films.get(0);
         if (film != null) {
-            film.setGenres(getGenresByFilmId(id));
-            film.setLikes(new HashSet<>(getLikesByFilmId(id)));
+            filmHydrator.hydrate(films);
             log.info("Found film with id {}: {}", id, film);
         } else {
             log.info("Film with id {} not found", id);
@@ -110,29 +124,52 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public List<Film> getAllFilms() {
+        return DataSourceRoute.read("films", this::findAllFilms);
+    }
+
+    private List<Film> findAllFilms() {
         log.info("Retrieving all films");
         String sql = "SELECT f.*, m.name AS mpa_name " +
                 "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_id = m.id";
+                "JOIN mpa_ratings m ON f.mpa_id = m.id " +
+                "WHERE f.deleted_at IS NULL";
 
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm);
-        if (!films.isEmpty()) {
-            Map<Long, List<Genre>> genresByFilmId = getGenresForFilms(films);
-            Map<Long, Set<Long>> likesByFilmId = getLikesForFilms(films);
-            for (Film film : films) {
-                film.setGenres(genresByFilmId.getOrDefault(film.getId(), new ArrayList<>()));
-                film.setLikes(likesByFilmId.getOrDefault(film.getId(), new HashSet<>()));
-            }
-        }
+        filmHydrator.hydrate(films);
         log.info("Retrieved {} films", films.size());
         return films;
     }
 
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return DataSourceRoute.read("films", () -> findFilmsByIds(ids));
+    }
+
+    private List<Film> findFilmsByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<Film> films = new ArrayList<>(distinctIds.size());
+        for (List<Long> batch : InClause.batches(distinctIds)) {
+            String sql = "SELECT f.*, m.name AS mpa_name " +
+                    "FROM films f " +
+                    "JOIN mpa_ratings m ON f.mpa_id = m.id " +
+                    "WHERE f.id IN (" + InClause.placeholders(batch.size()) + ") AND f.deleted_at IS NULL";
+            films.addAll(jdbcTemplate.query(sql, this::mapRowToFilm, InClause.args(batch)));
+        }
+        filmHydrator.hydrate(films);
+        Map<Long, Film> filmsById = films.stream().collect(Collectors.toMap(Film::getId, Function.identity()));
+        log.info("Retrieved {} of {} requested films", films.size(), distinctIds.size());
+        return distinctIds.stream().map(filmsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
     @Override
     public void addLike(Long filmId, Long userId) {
         log.info("Adding like to film {} by user {}", filmId, userId);
         String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, filmId, userId);
+        eventPublisher.publishEvent(new FilmChangeEvent(FilmChangeEvent.Type.LIKE_ADDED, filmId, userId));
         log.info("Like added to film {} by user {}", filmId, userId);
     }
 
@@ -143,30 +180,30 @@ public class FilmDbStorage implements FilmStorage {
         int rowsAffected = jdbcTemplate.update(sql, filmId, userId);
         if (rowsAffected == 0) {
             log.warn("Like not found for film {} by user {}", filmId, userId);
+            return;
         }
+        eventPublisher.publishEvent(new FilmChangeEvent(FilmChangeEvent.Type.LIKE_REMOVED, filmId, userId));
         log.info("Like removed from film {} by user {}", filmId, userId);
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
+        return DataSourceRoute.read("films", () -> findPopularFilms(count));
+    }
+
+    private List<Film> findPopularFilms(int count) {
         log.info("Retrieving top {} popular films", count);
         String sql = "SELECT f.*, m.name AS mpa_name, COUNT(fl.user_id) AS like_count " +
                 "FROM films f " +
                 "JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
+                "LEFT JOIN film_likes fl ON f.id = fl.film_id" + filmHydrator.likeFilter() + " " +
+                "WHERE f.deleted_at IS NULL " +
                 "GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name " +
-                "ORDER BY like_count DESC " +
+                "ORDER BY like_count DESC, f.id " +
                 "LIMIT ?";
 
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, count);
-        if (!films.isEmpty()) {
-            Map<Long, List<Genre>> genresByFilmId = getGenresForFilms(films);
-            Map<Long, Set<Long>> likesByFilmId = getLikesForFilms(films);
-            for (Film film : films) {
-                film.setGenres(genresByFilmId.getOrDefault(film.getId(), new ArrayList<>()));
-                film.setLikes(likesByFilmId.getOrDefault(film.getId(), new HashSet<>()));
-            }
-        }
+        filmHydrator.hydrate(films);
         log.info("Retrieved {} popular films", films.size());
         return films;
     }
@@ -178,7 +215,7 @@ public class FilmDbStorage implements FilmStorage {
                     .map(Genre::getId)
                     .distinct()
                     .collect(Collectors.toList());
-            List<Genre> existingGenres = genreDbStorage.getGenresByIds(genreIds);
+            List<Genre> existingGenres = DataSourceRoute.primary(() -> genreDbStorage.getGenresByIds(genreIds));
             if (existingGenres.size() != genreIds.size()) {
                 List<Long> existingIds = existingGenres.stream()
                         .map(Genre::getId)
@@ -208,55 +245,6 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
-    private Map<Long, List<Genre>> getGenresForFilms(List<Film> films) {
-        if (films.isEmpty()) return new HashMap<>();
-        List<Long> filmIds = films.stream().map(Film::getId).collect(Collectors.toList());
-        String sql = "SELECT fg.film_id, g.id, g.name " +
-                "FROM film_genres fg " +
-                "JOIN genres g ON fg.genre_id = g.id " +
-                "WHERE fg.film_id IN (" + String.join(",", Collections.nCopies(filmIds.size(), "?")) + ")";
-
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Long filmId = rs.getLong("film_id");
-            Genre genre = new Genre(rs.getLong("id"), rs.getString("name"));
-            return new AbstractMap.SimpleEntry<>(filmId, genre);
-        }, filmIds.toArray()).stream().collect(Collectors.groupingBy(
-                Map.Entry::getKey,
-                Collectors.mapping(Map.Entry::getValue, Collectors.toList())
-        ));
-    }
-
-    private Map<Long, Set<Long>> getLikesForFilms(List<Film> films) {
-        if (films.isEmpty()) return new HashMap<>();
-        List<Long> filmIds = films.stream().map(Film::getId).collect(Collectors.toList());
-        String sql = "SELECT film_id, user_id FROM film_likes WHERE film_id IN (" +
-                String.join(",", Collections.nCopies(filmIds.size(), "?")) + ")";
-
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Long filmId = rs.getLong("film_id");
-            Long userId = rs.getLong("user_id");
-            return new AbstractMap.SimpleEntry<>(filmId, userId);
-        }, filmIds.toArray()).stream().collect(Collectors.groupingBy(
-                Map.Entry::getKey,
-                Collectors.mapping(Map.Entry::getValue, Collectors.toSet())
-        ));
-    }
-
-    private List<Genre> getGenresByFilmId(Long filmId) {
-        String sql = "SELECT g.id, g.name " +
-                "FROM film_genres fg " +
-                "JOIN genres g ON fg.genre_id = g.id " +
-                "WHERE fg.film_id = ? " +
-                "ORDER BY g.id";
-
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new Genre(rs.getLong("id"), rs.getString("name")), filmId);
-    }
-
-    private List<Long> getLikesByFilmId(Long filmId) {
-        String sql = "SELECT user_id FROM film_likes WHERE film_id = ?";
-        return jdbcTemplate.queryForList(sql, Long.class, filmId);
-    }
-
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
         Film film = new Film();
         film.setId(rs.getLong("id"));
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.DataSourceRoute;
+import ru.yandex.practicum.filmorate.storage.InClause;
+import ru.yandex.practicum.filmorate.util.ClaimableTask;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads genres and likes of already mapped films. Both child queries run concurrently on separate pooled
+ * connections, unless the caller is inside a transaction: then they stay on the caller's connection so that
+ * uncommitted rows remain visible. Ids are sent in bounded, fixed-shape IN-batches (see {@link InClause}).
+ * <p>
+ * With {@code filmorate.purge.enabled} likes of tombstoned users stay in {@code film_likes} until they are purged
+ * and are skipped when read. Without it users are deleted at once together with their likes, and shards have no
+ * users table and drop such likes when the user is deleted, so those hydrators read every like.
+ */
+@Component
+public class FilmHydrator {
+    static final String LIVE_USERS = " AND fl.user_id NOT IN (SELECT id FROM users WHERE deleted_at IS NOT NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor executor;
+    private final String likeFilter;
+
+    @Autowired
+    public FilmHydrator(JdbcTemplate jdbcTemplate,
+                        @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                        ObjectProvider<Executor> executor,
+                        @Value("${filmorate.purge.enabled:false}") boolean tombstones) {
+        this(jdbcTemplate, executor.getIfAvailable(), tombstones);
+    }
+
+    public FilmHydrator(JdbcTemplate jdbcTemplate, Executor executor, boolean liveUsersOnly) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = executor;
+        this.likeFilter = liveUsersOnly ? LIVE_USERS : "";
+    }
+
+    /**
+     * Condition on {@code fl.user_id} appended to queries that count likes, so that they agree with the loaded ones.
+     */
+    String likeFilter() {
+        return likeFilter;
+    }
+
+    public void hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Long, Film> filmsById = new HashMap<>((int) (films.size() / 0.75f) + 1);
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Long> filmIds = List.copyOf(filmsById.keySet());
+
+        if (executor == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            loadGenres(filmIds, filmsById);
+            loadLikes(filmIds, filmsById);
+            return;
+        }
+        Runnable loadGenres = DataSourceRoute.propagate(() -> loadGenres(filmIds, filmsById));
+        ClaimableTask<Void> genres = ClaimableTask.submit(() -> {
+            loadGenres.run();
+            return null;
+        }, executor);
+        loadLikes(filmIds, filmsById);
+        genres.join();
+    }
+
+    private void loadGenres(List<Long> filmIds, Map<Long, Film> filmsById) {
+        for (List<Long> batch : InClause.batches(filmIds)) {
+            String sql = "SELECT fg.film_id, g.id, g.name " +
+                    "FROM film_genres fg " +
+                    "JOIN genres g ON fg.genre_id = g.id " +
+                    "WHERE fg.film_id IN (" + InClause.placeholders(batch.size()) + ") " +
+                    "ORDER BY g.id";
+            jdbcTemplate.query(sql, rs -> {
+                filmsById.get(rs.getLong("film_id")).getGenres()
+                        .add(new Genre(rs.getLong("id"), rs.getString("name")));
+            }, InClause.args(batch));
+        }
+    }
+
+    private void loadLikes(List<Long> filmIds, Map<Long, Film> filmsById) {
+        for (List<Long> batch : InClause.batches(filmIds)) {
+            String sql = "SELECT fl.film_id, fl.user_id FROM film_likes fl WHERE fl.film_id IN (" +
+                    InClause.placeholders(batch.size()) + ")" + likeFilter;
+            jdbcTemplate.query(sql, rs -> {
+                filmsById.get(rs.getLong("film_id")).getLikes().add(rs.getLong("user_id"));
+            }, InClause.args(batch));
+        }
+    }
+}
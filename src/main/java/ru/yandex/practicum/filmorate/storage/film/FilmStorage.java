@@ -22,4 +22,9 @@ public interface FilmStorage {
 
     List<Film> getPopularFilms(int count);
 
+    /**
+     * Films with the given ids in the order of the list; unknown ids are skipped.
+     */
+    List<Film> getFilmsByIds(List<Long> ids);
+
 }
\ No newline at end of file
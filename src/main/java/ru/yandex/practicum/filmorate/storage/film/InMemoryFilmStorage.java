@@ -1,51 +1,65 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.SnapshotFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+/**
+ * Film fields are never modified in place: an update replaces the film with a copy under the map's per-key lock.
+ * Likes live in a concurrent set that every version of the film shares, so a like costs one set operation instead
+ * of a copy of the film, and readers and snapshots can walk the map without locking.
+ */
 @Component("inMemoryFilmStorage")
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private long idCounter = 0;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final AtomicLong idCounter = new AtomicLong();
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InMemoryFilmStorage(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
 
     @Override
     public Film addFilm(Film film) {
-        film.setId(++idCounter);
-        if (film.getLikes() == null) {
-            film.setLikes(new HashSet<>());
-        }
-        if (film.getGenres() == null) {
-            film.setGenres(new ArrayList<>());
-        }
-        films.put(film.getId(), film);
-        return film;
+        film.setId(idCounter.incrementAndGet());
+        Film stored = copy(film, likeSet(film.getLikes()));
+        films.put(stored.getId(), stored);
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.CREATED, stored.getId()));
+        return stored;
     }
 
     @Override
     public Film updateFilm(Film film) {
-        if (!films.containsKey(film.getId())) {
-            throw new NotFoundException("Фильм с id=" + film.getId() + " не найден");
-        }
-        if (film.getLikes() == null) {
-            film.setLikes(new HashSet<>());
-        }
-        if (film.getGenres() == null) {
-            film.setGenres(new ArrayList<>());
-        }
-        films.put(film.getId(), film);
-        return film;
+        Film updated = films.compute(film.getId(), (id, existing) -> {
+            if (existing == null) {
+                throw new NotFoundException("Фильм с id=" + film.getId() + " не найден");
+            }
+            return copy(film, existing.getLikes());
+        });
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.UPDATED, updated.getId()));
+        return updated;
     }
 
     @Override
     public void deleteFilm(Long id) {
-        if (!films.containsKey(id)) {
+        if (films.remove(id) == null) {
             throw new NotFoundException("Фильм с id=" + id + " не найден");
         }
-        films.remove(id);
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, id));
     }
 
     @Override
@@ -58,25 +72,131 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addLike(Long filmId, Long userId) {
-        Film film = getFilmById(filmId).orElseThrow(() ->
-                new NotFoundException("Фильм с id=" + filmId + " не найден"));
-        film.getLikes().add(userId);
+        if (existing(filmId, films.get(filmId)).getLikes().add(userId)) {
+            eventPublisher.publishEvent(new FilmChangeEvent(FilmChangeEvent.Type.LIKE_ADDED, filmId, userId));
+        }
     }
 
     @Override
     public void removeLike(Long filmId, Long userId) {
-        Film film = getFilmById(filmId).orElseThrow(() ->
-                new NotFoundException("Фильм с id=" + filmId + " не найден"));
-        film.getLikes().remove(userId);
+        if (existing(filmId, films.get(filmId)).getLikes().remove(userId)) {
+            eventPublisher.publishEvent(new FilmChangeEvent(FilmChangeEvent.Type.LIKE_REMOVED, filmId, userId));
+        }
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
+        // Like counts keep changing while we sort, so rank by counts read once
         return films.values().stream()
-                .sorted((f1, f2) -> Integer.compare(f2.getLikes().size(), f1.getLikes().size()))
+                .map(film -> Map.entry(film, film.getLikes().size()))
+                .sorted((f1, f2) -> Integer.compare(f2.getValue(), f1.getValue()))
                 .limit(count)
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    public int size() {
+        return films.size();
+    }
+
+    public void saveSnapshot(Path file) throws IOException {
+        SnapshotFile.write(file, SNAPSHOT_VERSION, this::writeSnapshot);
+    }
+
+    /**
+     * Replaces the contents with the snapshot in {@code file}.
+     *
+     * @return {@code false} if there is no snapshot yet
+     */
+    public boolean loadSnapshot(Path file) throws IOException {
+        return SnapshotFile.read(file, SNAPSHOT_VERSION, this::readSnapshot);
+    }
+
+    private void writeSnapshot(SnapshotFile.Writer writer) throws IOException {
+        List<Film> snapshot = new ArrayList<>(films.values());
+        writer.putLong(idCounter.get());
+        writer.putInt(snapshot.size());
+        for (Film film : snapshot) {
+            writer.putLong(film.getId());
+            writer.putString(film.getName());
+            writer.putString(film.getDescription());
+            writer.putDate(film.getReleaseDate());
+            writer.putInt(film.getDuration());
+            writer.putLong(film.getMpa() == null ? 0 : film.getMpa().getId());
+            writer.putString(film.getMpa() == null ? null : film.getMpa().getName());
+            writer.putInt(film.getGenres().size());
+            for (Genre genre : film.getGenres()) {
+                writer.putLong(genre.getId());
+                writer.putString(genre.getName());
+            }
+            List<Long> likes = new ArrayList<>(film.getLikes());
+            writer.putInt(likes.size());
+            for (Long userId : likes) {
+                writer.putLong(userId);
+            }
+        }
+    }
+
+    private void readSnapshot(SnapshotFile.Reader reader) {
+        long counter = reader.getLong();
+        int count = reader.getInt();
+        Map<Long, Film> loaded = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setLikes(likeSet(List.of()));
+            film.setId(reader.getLong());
+            film.setName(reader.getString());
+            film.setDescription(reader.getString());
+            film.setReleaseDate(reader.getDate());
+            film.setDuration(reader.getInt());
+            long mpaId = reader.getLong();
+            String mpaName = reader.getString();
+            film.setMpa(mpaId == 0 ? null : new Mpa(mpaId, mpaName));
+            int genres = reader.getInt();
+            for (int g = 0; g < genres; g++) {
+                film.getGenres().add(new Genre(reader.getLong(), reader.getString()));
+            }
+            int likes = reader.getInt();
+            for (int l = 0; l < likes; l++) {
+                film.getLikes().add(reader.getLong());
+            }
+            loaded.put(film.getId(), film);
+        }
+        films.clear();
+        films.putAll(loaded);
+        idCounter.set(counter);
+    }
+
+    private static Film existing(Long filmId, Film film) {
+        if (film == null) {
+            throw new NotFoundException("Фильм с id=" + filmId + " не найден");
+        }
+        return film;
+    }
+
+    private static Film copy(Film film, Set<Long> likes) {
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), likes, film.getMpa(),
+                film.getGenres() == null ? new ArrayList<>() : new ArrayList<>(film.getGenres()));
+    }
+
+    private static Set<Long> likeSet(Collection<Long> userIds) {
+        Set<Long> likes = ConcurrentHashMap.newKeySet();
+        if (userIds != null) {
+            likes.addAll(userIds);
+        }
+        return likes;
+    }
+}
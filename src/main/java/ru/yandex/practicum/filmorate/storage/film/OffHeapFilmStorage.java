@@ -0,0 +1,553 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.GenreChangeEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+import ru.yandex.practicum.filmorate.util.LongLongHashMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Keeps films as packed records in direct {@link ByteBuffer} chunks, outside the Java heap. The heap holds only
+ * the id-to-address index, the chunk list and the genre and MPA dictionaries; {@link Film} objects are built on
+ * every read and never retained.
+ * <p>
+ * A film record is {@code id:8 releaseDate:4 duration:4 likes:8 likeCount:4 likeCapacity:4 mpa:1 genreCount:1},
+ * then one code byte per genre and the name and description as length-prefixed UTF-8. Likes live in a separate
+ * block of user ids that doubles when full. Updated records are appended and the old space is reclaimed by
+ * compaction once more than half of the arena is garbage.
+ * <p>
+ * The dictionaries are keyed by genre and MPA id; their names are taken from the reference tables, not from the
+ * stored films, and a renamed genre is read with its new name.
+ */
+@Slf4j
+@Component("offHeapFilmStorage")
+public class OffHeapFilmStorage implements FilmStorage {
+    private static final int ID = 0;
+    private static final int RELEASE_DATE = 8;
+    private static final int DURATION = 12;
+    private static final int LIKES = 16;
+    private static final int LIKE_COUNT = 24;
+    private static final int LIKE_CAPACITY = 28;
+    private static final int MPA = 32;
+    private static final int GENRE_COUNT = 33;
+    private static final int GENRES = 34;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final int MIN_LIKE_CAPACITY = 4;
+    private static final int MAX_CODES = 255;
+
+    private final int chunkSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongLongHashMap index = new LongLongHashMap();
+    private final ApplicationEventPublisher eventPublisher;
+    private final GenreDbStorage genreStorage;
+    private final MpaDbStorage mpaStorage;
+    private final List<Mpa> mpaCodes = new ArrayList<>();
+    private final Map<Long, Integer> mpaLookup = new HashMap<>();
+    private final List<Genre> genreCodes = new ArrayList<>();
+    private final Map<Long, Integer> genreLookup = new HashMap<>();
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private long allocatedBytes;
+    private long garbageBytes;
+    private long idCounter;
+
+    @Autowired
+    public OffHeapFilmStorage(@Value("${filmorate.storage.off-heap.chunk-size:16MB}") DataSize chunkSize,
+                              ApplicationEventPublisher eventPublisher,
+                              ObjectProvider<GenreDbStorage> genreStorage,
+                              ObjectProvider<MpaDbStorage> mpaStorage) {
+        this(Math.toIntExact(chunkSize.toBytes()), eventPublisher, genreStorage.getIfAvailable(),
+                mpaStorage.getIfAvailable());
+    }
+
+    /**
+     * Keeps the genre and MPA names given with the films.
+     */
+    public OffHeapFilmStorage(int chunkSize, ApplicationEventPublisher eventPublisher) {
+        this(chunkSize, eventPublisher, null, null);
+    }
+
+    public OffHeapFilmStorage(int chunkSize, ApplicationEventPublisher eventPublisher, GenreDbStorage genreStorage,
+                              MpaDbStorage mpaStorage) {
+        this.chunkSize = chunkSize;
+        this.eventPublisher = eventPublisher;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Film added;
+        lock.writeLock().lock();
+        try {
+            film.setId(++idCounter);
+            long address = writeRecord(film);
+            index.put(film.getId(), address);
+            added = readFilm(address);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.CREATED, added.getId()));
+        return added;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        Film updated;
+        lock.writeLock().lock();
+        try {
+            long previous = existing(film.getId());
+            index.put(film.getId(), writeRecord(film));
+            release(previous);
+            compactIfNeeded();
+            updated = readFilm(index.get(film.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.UPDATED, updated.getId()));
+        return updated;
+    }
+
+    @Override
+    public void deleteFilm(Long id) {
+        lock.writeLock().lock();
+        try {
+            release(existing(id));
+            index.remove(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, id));
+    }
+
+    @Override
+    public Optional<Film> getFilmById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            long address = index.get(id);
+            return address == LongLongHashMap.NO_VALUE ? Optional.empty() : Optional.of(readFilm(address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        lock.readLock().lock();
+        try {
+            long[] ids = index.keys();
+            List<Film> films = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                films.add(readFilm(index.get(id)));
+            }
+            return films;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<Film> films = new ArrayList<>(ids.size());
+            Set<Long> seen = new HashSet<>();
+            for (Long id : ids) {
+                if (id == null) {
+                    continue;
+                }
+                long address = index.get(id);
+                if (address != LongLongHashMap.NO_VALUE && seen.add(id)) {
+                    films.add(readFilm(address));
+                }
+            }
+            return films;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        boolean added = false;
+        lock.writeLock().lock();
+        try {
+            long address = existing(filmId);
+            ByteBuffer record = chunk(address);
+            int position = position(address);
+            long likes = record.getLong(position + LIKES);
+            int count = record.getInt(position + LIKE_COUNT);
+            int capacity = record.getInt(position + LIKE_CAPACITY);
+            if (indexOfLike(likes, count, userId) >= 0) {
+                return;
+            }
+            if (count == capacity) {
+                long grown = allocate(capacity * 2 * Long.BYTES);
+                copy(likes, grown, count * Long.BYTES);
+                garbageBytes += (long) capacity * Long.BYTES;
+                likes = grown;
+                capacity *= 2;
+                record.putLong(position + LIKES, likes);
+                record.putInt(position + LIKE_CAPACITY, capacity);
+            }
+            chunk(likes).putLong(position(likes) + count * Long.BYTES, userId);
+            record.putInt(position + LIKE_COUNT, count + 1);
+            added = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (added) {
+            eventPublisher.publishEvent(new FilmChangeEvent(FilmChangeEvent.Type.LIKE_ADDED, filmId, userId));
+        }
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        boolean removed = false;
+        lock.writeLock().lock();
+        try {
+            long address = existing(filmId);
+            ByteBuffer record = chunk(address);
+            int position = position(address);
+            long likes = record.getLong(position + LIKES);
+            int count = record.getInt(position + LIKE_COUNT);
+            int found = indexOfLike(likes, count, userId);
+            if (found < 0) {
+                return;
+            }
+            ByteBuffer block = chunk(likes);
+            int base = position(likes);
+            block.putLong(base + found * Long.BYTES, block.getLong(base + (count - 1) * Long.BYTES));
+            record.putInt(position + LIKE_COUNT, count - 1);
+            removed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed) {
+            eventPublisher.publishEvent(new FilmChangeEvent(FilmChangeEvent.Type.LIKE_REMOVED, filmId, userId));
+        }
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        lock.readLock().lock();
+        try {
+            // Min-heap of {likes, id}: the film with the fewest likes, then the largest id, is dropped first.
+            PriorityQueue<long[]> top = new PriorityQueue<>(Math.max(1, count), (a, b) -> a[0] != b[0]
+                    ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+            index.forEach((id, address) -> {
+                long likes = chunk(address).getInt(position(address) + LIKE_COUNT);
+                long[] weakest = top.peek();
+                if (top.size() < count) {
+                    top.add(new long[]{likes, id});
+                } else if (weakest != null && (likes > weakest[0] || likes == weakest[0] && id < weakest[1])) {
+                    top.poll();
+                    top.add(new long[]{likes, id});
+                }
+            });
+            LinkedList<Film> films = new LinkedList<>();
+            while (!top.isEmpty()) {
+                films.addFirst(readFilm(index.get(top.poll()[1])));
+            }
+            return new ArrayList<>(films);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes reserved in direct memory, including garbage that has not been compacted yet.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return chunks.stream().mapToLong(ByteBuffer::capacity).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Genre names are only read from the reference table when a genre is first stored, so renames are picked up
+     * here.
+     */
+    @EventListener
+    public void onGenreChange(GenreChangeEvent event) {
+        if (genreStorage == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer code = genreLookup.get(event.getGenreId());
+            if (code != null) {
+                genreStorage.getGenreById(event.getGenreId())
+                        .ifPresent(genre -> genreCodes.set(code - 1, new Genre(genre.getId(), genre.getName())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long existing(Long filmId) {
+        long address = filmId == null ? LongLongHashMap.NO_VALUE : index.get(filmId);
+        if (address == LongLongHashMap.NO_VALUE) {
+            throw new NotFoundException("Фильм с id=" + filmId + " не найден");
+        }
+        return address;
+    }
+
+    /**
+     * Everything that can reject the film is checked before any space is allocated, so a failed write leaves no
+     * garbage behind.
+     */
+    private long writeRecord(Film film) {
+        byte[] name = encode(film.getName());
+        byte[] description = encode(film.getDescription());
+        List<Genre> genres = film.getGenres() == null ? List.of() : film.getGenres();
+        if (genres.size() > MAX_CODES) {
+            throw new IllegalArgumentException("У фильма не может быть больше " + MAX_CODES + " жанров");
+        }
+        int mpaCode = code(film.getMpa() == null ? null : film.getMpa().getId(), mpaCodes,
+                mpaLookup, id -> new Mpa(id, mpaName(id, film.getMpa().getName())), "MPA");
+        byte[] genreCodesOfFilm = new byte[genres.size()];
+        for (int i = 0; i < genres.size(); i++) {
+            Genre genre = genres.get(i);
+            genreCodesOfFilm[i] = (byte) code(genre.getId(), genreCodes, genreLookup,
+                    id -> new Genre(id, genreName(id, genre.getName())), "жанров");
+        }
+
+        Set<Long> userIds = film.getLikes() == null ? Set.of() : film.getLikes();
+        int capacity = likeCapacity(userIds.size());
+        long likes = allocate(capacity * Long.BYTES);
+        ByteBuffer block = chunk(likes);
+        int likeOffset = position(likes);
+        for (Long userId : userIds) {
+            block.putLong(likeOffset, userId);
+            likeOffset += Long.BYTES;
+        }
+
+        int size = GENRES + genres.size() + Integer.BYTES + length(name) + Integer.BYTES + length(description);
+        long address = allocate(size);
+        ByteBuffer record = chunk(address);
+        int position = position(address);
+        record.putLong(position + ID, film.getId());
+        record.putInt(position + RELEASE_DATE,
+                film.getReleaseDate() == null ? NO_DATE : Math.toIntExact(film.getReleaseDate().toEpochDay()));
+        record.putInt(position + DURATION, film.getDuration());
+        record.putLong(position + LIKES, likes);
+        record.putInt(position + LIKE_COUNT, userIds.size());
+        record.putInt(position + LIKE_CAPACITY, capacity);
+        record.put(position + MPA, (byte) mpaCode);
+        record.put(position + GENRE_COUNT, (byte) genres.size());
+        int offset = position + GENRES;
+        record.put(offset, genreCodesOfFilm);
+        offset += genreCodesOfFilm.length;
+        offset = putBytes(record, offset, name);
+        putBytes(record, offset, description);
+        return address;
+    }
+
+    private Film readFilm(long address) {
+        ByteBuffer record = chunk(address);
+        int position = position(address);
+        Film film = new Film();
+        film.setId(record.getLong(position + ID));
+        int releaseDate = record.getInt(position + RELEASE_DATE);
+        film.setReleaseDate(releaseDate == NO_DATE ? null : LocalDate.ofEpochDay(releaseDate));
+        film.setDuration(record.getInt(position + DURATION));
+        long likes = record.getLong(position + LIKES);
+        int count = record.getInt(position + LIKE_COUNT);
+        ByteBuffer block = chunk(likes);
+        int base = position(likes);
+        for (int i = 0; i < count; i++) {
+            film.getLikes().add(block.getLong(base + i * Long.BYTES));
+        }
+        int mpa = Byte.toUnsignedInt(record.get(position + MPA));
+        if (mpa != 0) {
+            Mpa code = mpaCodes.get(mpa - 1);
+            film.setMpa(new Mpa(code.getId(), code.getName()));
+        }
+        int genres = Byte.toUnsignedInt(record.get(position + GENRE_COUNT));
+        int offset = position + GENRES;
+        for (int i = 0; i < genres; i++) {
+            Genre code = genreCodes.get(Byte.toUnsignedInt(record.get(offset++)) - 1);
+            film.getGenres().add(new Genre(code.getId(), code.getName()));
+        }
+        int nameLength = record.getInt(offset);
+        film.setName(getString(record, offset));
+        film.setDescription(getString(record, offset + Integer.BYTES + Math.max(0, nameLength)));
+        return film;
+    }
+
+    private void release(long address) {
+        ByteBuffer record = chunk(address);
+        int position = position(address);
+        garbageBytes += recordSize(record, position)
+                + (long) record.getInt(position + LIKE_CAPACITY) * Long.BYTES;
+    }
+
+    private void compactIfNeeded() {
+        if (garbageBytes <= chunkSize || garbageBytes * 2 <= allocatedBytes) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<ByteBuffer> old = chunks;
+        long reclaimed = garbageBytes;
+        chunks = new ArrayList<>();
+        allocatedBytes = 0;
+        garbageBytes = 0;
+        index.forEach((id, address) -> {
+            ByteBuffer record = old.get(chunkIndex(address));
+            int position = position(address);
+            int count = record.getInt(position + LIKE_COUNT);
+            int capacity = likeCapacity(count);
+            long likes = allocate(capacity * Long.BYTES);
+            long oldLikes = record.getLong(position + LIKES);
+            chunk(likes).put(position(likes), old.get(chunkIndex(oldLikes)), position(oldLikes), count * Long.BYTES);
+            int size = recordSize(record, position);
+            long moved = allocate(size);
+            ByteBuffer target = chunk(moved);
+            target.put(position(moved), record, position, size);
+            target.putLong(position(moved) + LIKES, likes);
+            target.putInt(position(moved) + LIKE_CAPACITY, capacity);
+            index.put(id, moved);
+        });
+        log.info("Compacted off-heap film storage: reclaimed {} bytes in {} ms", reclaimed,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private long allocate(int size) {
+        ByteBuffer current = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (current == null || current.remaining() < size) {
+            current = ByteBuffer.allocateDirect(Math.max(chunkSize, size));
+            chunks.add(current);
+        }
+        int position = current.position();
+        current.position(position + size);
+        allocatedBytes += size;
+        return (long) (chunks.size() - 1) << 32 | position;
+    }
+
+    private void copy(long from, long to, int length) {
+        chunk(to).put(position(to), chunk(from), position(from), length);
+    }
+
+    private int indexOfLike(long likes, int count, long userId) {
+        ByteBuffer block = chunk(likes);
+        int base = position(likes);
+        for (int i = 0; i < count; i++) {
+            if (block.getLong(base + i * Long.BYTES) == userId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get(chunkIndex(address));
+    }
+
+    private static int chunkIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int position(long address) {
+        return (int) address;
+    }
+
+    private static int recordSize(ByteBuffer record, int position) {
+        int offset = position + GENRES + Byte.toUnsignedInt(record.get(position + GENRE_COUNT));
+        offset += Integer.BYTES + Math.max(0, record.getInt(offset));
+        offset += Integer.BYTES + Math.max(0, record.getInt(offset));
+        return offset - position;
+    }
+
+    private static int likeCapacity(int count) {
+        return Math.max(MIN_LIKE_CAPACITY, Integer.highestOneBit(Math.max(1, count - 1)) << 1);
+    }
+
+    private String genreName(long id, String given) {
+        return genreStorage == null ? given : genreStorage.getGenreById(id).map(Genre::getName).orElse(given);
+    }
+
+    private String mpaName(long id, String given) {
+        return mpaStorage == null ? given : mpaStorage.getMpaById(id).map(Mpa::getName).orElse(given);
+    }
+
+    private static <T> int code(Long id, List<T> codes, Map<Long, Integer> lookup, Function<Long, T> create,
+                                String kind) {
+        if (id == null) {
+            return 0;
+        }
+        Integer code = lookup.get(id);
+        if (code == null) {
+            if (codes.size() == MAX_CODES) {
+                throw new IllegalStateException("Превышено число различных значений " + kind + ": " + MAX_CODES);
+            }
+            codes.add(create.apply(id));
+            code = codes.size();
+            lookup.put(id, code);
+        }
+        return code;
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static int putBytes(ByteBuffer buffer, int offset, byte[] bytes) {
+        buffer.putInt(offset, bytes == null ? NO_STRING : bytes.length);
+        if (bytes != null) {
+            buffer.put(offset + Integer.BYTES, bytes);
+        }
+        return offset + Integer.BYTES + length(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        if (length == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
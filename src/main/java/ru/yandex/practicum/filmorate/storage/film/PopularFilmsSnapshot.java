@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.event.PopularFilmsRefreshedEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+import ru.yandex.practicum.filmorate.storage.DataSourceRoute;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Film ids ordered by like count, rebuilt by one aggregate pass over the primary's {@code film_likes} on a fixed
+ * delay and after every {@code rebuild-after-likes} like changes. Readers take the current immutable
+ * {@link Snapshot} and hydrate films by id, so serving the top list never runs the {@code GROUP BY}. Cached popular
+ * lists are only invalidated by a rebuild that changed the ranking.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "filmorate.popular.snapshot", name = "enabled", havingValue = "true")
+public class PopularFilmsSnapshot implements InitializingBean {
+    private final String sql;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor executor;
+    private final int size;
+    private final int rebuildAfterLikes;
+    private final AtomicInteger likesSinceRebuild = new AtomicInteger();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot current;
+
+    public PopularFilmsSnapshot(JdbcTemplate jdbcTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                ObjectProvider<Executor> executor,
+                                @Value("${filmorate.popular.snapshot.size:1000}") int size,
+                                @Value("${filmorate.popular.snapshot.rebuild-after-likes:1000}") int rebuildAfterLikes,
+                                @Value("${filmorate.purge.enabled:false}") boolean tombstones) {
+        this.sql = "SELECT f.id FROM films f " +
+                "LEFT JOIN film_likes fl ON f.id = fl.film_id" + (tombstones ? FilmHydrator.LIVE_USERS : "") + " " +
+                "WHERE f.deleted_at IS NULL " +
+                "GROUP BY f.id " +
+                "ORDER BY COUNT(fl.user_id) DESC, f.id " +
+                "LIMIT ?";
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.executor = executor.getIfAvailable(() -> Runnable::run);
+        this.size = size;
+        this.rebuildAfterLikes = rebuildAfterLikes;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    public Snapshot current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.popular.snapshot.interval:PT5S}",
+            initialDelayString = "${filmorate.popular.snapshot.interval:PT5S}")
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        boolean changed;
+        try {
+            likesSinceRebuild.set(0);
+            long started = System.nanoTime();
+            // A lagging replica would rank films by likes the primary has already changed or purged
+            long[] filmIds = DataSourceRoute.primary(() -> jdbcTemplate.query(sql,
+                    (rs, rowNum) -> rs.getLong("id"), size)).stream().mapToLong(Long::longValue).toArray();
+            Snapshot previous = current;
+            changed = previous == null || !Arrays.equals(previous.filmIds(), filmIds);
+            current = new Snapshot(filmIds, System.currentTimeMillis());
+            log.debug("Rebuilt popular snapshot of {} films in {} ms", filmIds.length,
+                    (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+        if (changed) {
+            eventPublisher.publishEvent(new PopularFilmsRefreshedEvent(size));
+        }
+    }
+
+    @EventListener
+    public void onFilmChange(FilmChangeEvent event) {
+        if (event.getType() != FilmChangeEvent.Type.LIKE_ADDED
+                && event.getType() != FilmChangeEvent.Type.LIKE_REMOVED) {
+            return;
+        }
+        if (likesSinceRebuild.incrementAndGet() >= rebuildAfterLikes) {
+            likesSinceRebuild.set(0);
+            executor.execute(this::rebuild);
+        }
+    }
+
+    // A deleted user's likes stop counting at once
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        if (event.getType() == UserChangeEvent.Type.DELETED) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    @EventListener
+    public void onCachesReset(CachesResetEvent event) {
+        executor.execute(this::rebuild);
+    }
+
+    /**
+     * Immutable ranking; {@code filmIds} must not be modified by readers.
+     */
+    public record Snapshot(long[] filmIds, long builtAt) {
+
+        public Duration age() {
+            return Duration.ofMillis(Math.max(0, System.currentTimeMillis() - builtAt));
+        }
+    }
+}
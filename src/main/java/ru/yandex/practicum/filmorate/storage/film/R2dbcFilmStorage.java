@@ -0,0 +1,287 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.r2dbc.spi.Readable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.InClause;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link ReactiveFilmStorage} on the same tables as {@link FilmDbStorage}, read through R2DBC. All films are
+ * read in keyset pages of {@code pageSize} by id, each page followed by the genre and like queries for its films,
+ * so the next page is only read once the subscriber has taken the previous one and no connection is held between
+ * pages. Deletes remove the row at once, dependent rows go by {@code ON DELETE CASCADE}.
+ */
+@Slf4j
+public class R2dbcFilmStorage implements ReactiveFilmStorage {
+    private static final String SELECT_FILMS = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+            "f.mpa_id, m.name AS mpa_name " +
+            "FROM films f " +
+            "JOIN mpa_ratings m ON f.mpa_id = m.id ";
+    private static final String INSERT_LIKE = "INSERT INTO film_likes (film_id, user_id) VALUES (:filmId, :userId)";
+    private static final String INSERT_GENRE = "INSERT INTO film_genres (film_id, genre_id) VALUES (:filmId, :genreId)";
+
+    private final DatabaseClient client;
+    private final TransactionalOperator transactionalOperator;
+    private final String likeFilter;
+    private final int pageSize;
+    private final Scheduler scheduler;
+
+    /**
+     * @param scheduler where statements are subscribed; drivers that execute statements synchronously on the
+     *                  subscribing thread, such as r2dbc-h2, need one off the server's event loops
+     * @param tombstones whether likes of tombstoned users may still be in {@code film_likes} and must be skipped
+     */
+    public R2dbcFilmStorage(DatabaseClient client, TransactionalOperator transactionalOperator, int pageSize,
+                            Scheduler scheduler, boolean tombstones) {
+        this.client = client;
+        this.transactionalOperator = transactionalOperator;
+        this.pageSize = Math.min(pageSize, InClause.MAX_SIZE);
+        this.scheduler = scheduler;
+        this.likeFilter = tombstones ? FilmHydrator.LIVE_USERS : "";
+    }
+
+    @Override
+    public Mono<Film> addFilm(Film film) {
+        Mono<Long> insert = bindFilm(client.sql("INSERT INTO films (name, description, release_date, duration, " +
+                        "mpa_id) VALUES (:name, :description, :releaseDate, :duration, :mpaId)"), film)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .flatMap(filmId -> insertGenres(filmId, film.getGenres()).thenReturn(filmId));
+        return transactionalOperator.transactional(insert)
+                .doOnNext(filmId -> log.info("Film added with id {}: {}", filmId, film.getName()))
+                .flatMap(this::getFilmById)
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Film> updateFilm(Film film) {
+        Mono<Long> update = bindFilm(client.sql("UPDATE films SET name = :name, description = :description, " +
+                        "release_date = :releaseDate, duration = :duration, mpa_id = :mpaId " +
+                        "WHERE id = :id AND deleted_at IS NULL"), film)
+                .bind("id", film.getId())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new NotFoundException("Фильм с id=" + film.getId() + " не найден"))
+                        : client.sql("DELETE FROM film_genres WHERE film_id = :id").bind("id", film.getId()).then())
+                .then(insertGenres(film.getId(), film.getGenres()))
+                .then(client.sql("DELETE FROM film_likes WHERE film_id = :id").bind("id", film.getId()).then())
+                .then(Flux.fromIterable(film.getLikes() == null ? List.of() : film.getLikes())
+                        .concatMap(userId -> client.sql(INSERT_LIKE)
+                                .bind("filmId", film.getId())
+                                .bind("userId", userId)
+                                .then())
+                        .then())
+                .thenReturn(film.getId());
+        return transactionalOperator.transactional(update)
+                .doOnNext(filmId -> log.info("Film with id {} updated", filmId))
+                .flatMap(this::getFilmById)
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> deleteFilm(long id) {
+        return client.sql("DELETE FROM films WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new NotFoundException("Фильм с id=" + id + " не найден"))
+                        : Mono.<Void>fromRunnable(() -> log.info("Film with id {} deleted", id)))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Film> getFilmById(long id) {
+        return client.sql(SELECT_FILMS + "WHERE f.id = :id AND f.deleted_at IS NULL")
+                .bind("id", id)
+                .map(this::mapRowToFilm)
+                .all()
+                .collectList()
+                .flatMapMany(this::hydrate)
+                .next()
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Film> getAllFilms() {
+        return page(0)
+                .expand(films -> films.size() < pageSize ? Mono.empty() : page(films.get(films.size() - 1).getId()))
+                .concatMapIterable(Function.identity())
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> addLike(long filmId, long userId) {
+        return client.sql(INSERT_LIKE)
+                .bind("filmId", filmId)
+                .bind("userId", userId)
+                .then()
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> removeLike(long filmId, long userId) {
+        return client.sql("DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId")
+                .bind("filmId", filmId)
+                .bind("userId", userId)
+                .then()
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * The ranking is read in one query, since it has to aggregate every like anyway, and its connection released;
+     * films are then emitted in pages of {@code pageSize} as their genres and likes are loaded.
+     */
+    @Override
+    public Flux<Film> getPopularFilms(int count) {
+        return client.sql(SELECT_FILMS +
+                        "LEFT JOIN film_likes fl ON f.id = fl.film_id" + likeFilter + " " +
+                        "WHERE f.deleted_at IS NULL " +
+                        "GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name " +
+                        "ORDER BY COUNT(fl.user_id) DESC, f.id " +
+                        "LIMIT :count")
+                .bind("count", count)
+                .map(this::mapRowToFilm)
+                .all()
+                .collectList()
+                .flatMapMany(films -> Flux.fromIterable(films).buffer(pageSize))
+                .concatMap(this::hydrate, 1)
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> mpaExists(long mpaId) {
+        return client.sql("SELECT id FROM mpa_ratings WHERE id = :id")
+                .bind("id", mpaId)
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .hasElements()
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Long> findGenreIds(List<Long> genreIds) {
+        if (genreIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.fromIterable(InClause.batches(genreIds))
+                .concatMap(batch -> client.sql("SELECT id FROM genres WHERE id IN (:ids)")
+                        .bind("ids", padded(batch))
+                        .map(row -> row.get("id", Long.class))
+                        .all())
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> userExists(long userId) {
+        return client.sql("SELECT id FROM users WHERE id = :id AND deleted_at IS NULL")
+                .bind("id", userId)
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .hasElements()
+                .subscribeOn(scheduler);
+    }
+
+    private Mono<List<Film>> page(long afterId) {
+        return client.sql(SELECT_FILMS + "WHERE f.id > :afterId AND f.deleted_at IS NULL ORDER BY f.id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", pageSize)
+                .map(this::mapRowToFilm)
+                .all()
+                .collectList()
+                .flatMap(films -> hydrate(films).collectList());
+    }
+
+    // Genres and likes are read concurrently on two pooled connections, as FilmHydrator does
+    private Flux<Film> hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<Long, Film> filmsById = new HashMap<>((int) (films.size() / 0.75f) + 1);
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Long> filmIds = List.copyOf(filmsById.keySet());
+        Mono<Void> genres = client.sql("SELECT fg.film_id, g.id, g.name " +
+                        "FROM film_genres fg " +
+                        "JOIN genres g ON fg.genre_id = g.id " +
+                        "WHERE fg.film_id IN (:ids) " +
+                        "ORDER BY g.id")
+                .bind("ids", padded(filmIds))
+                .map(row -> {
+                    filmsById.get(row.get("film_id", Long.class)).getGenres()
+                            .add(new Genre(row.get("id", Long.class), row.get("name", String.class)));
+                    return row.get("film_id", Long.class);
+                })
+                .all()
+                .then();
+        Mono<Void> likes = client.sql("SELECT fl.film_id, fl.user_id FROM film_likes fl WHERE fl.film_id IN (:ids)" +
+                        likeFilter)
+                .bind("ids", padded(filmIds))
+                .map(row -> {
+                    filmsById.get(row.get("film_id", Long.class)).getLikes().add(row.get("user_id", Long.class));
+                    return row.get("film_id", Long.class);
+                })
+                .all()
+                .then();
+        return Mono.when(genres, likes).thenMany(Flux.fromIterable(films));
+    }
+
+    private Mono<Void> insertGenres(long filmId, List<Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(genres)
+                .map(Genre::getId)
+                .distinct()
+                .concatMap(genreId -> client.sql(INSERT_GENRE)
+                        .bind("filmId", filmId)
+                        .bind("genreId", genreId)
+                        .then())
+                .then();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFilm(DatabaseClient.GenericExecuteSpec spec, Film film) {
+        spec = spec.bind("name", film.getName())
+                .bind("releaseDate", film.getReleaseDate())
+                .bind("duration", film.getDuration())
+                .bind("mpaId", film.getMpa().getId());
+        return film.getDescription() == null
+                ? spec.bindNull("description", String.class)
+                : spec.bind("description", film.getDescription());
+    }
+
+    // The same padded IN-list shapes as the JDBC storages
+    private static Collection<Object> padded(List<Long> ids) {
+        return Arrays.asList(InClause.args(ids));
+    }
+
+    private Film mapRowToFilm(Readable row) {
+        Film film = new Film();
+        film.setId(row.get("id", Long.class));
+        film.setName(row.get("name", String.class));
+        film.setDescription(row.get("description", String.class));
+        film.setReleaseDate(row.get("release_date", LocalDate.class));
+        film.setDuration(row.get("duration", Integer.class));
+        film.setMpa(new Mpa(row.get("mpa_id", Long.class), row.get("mpa_name", String.class)));
+        return film;
+    }
+}
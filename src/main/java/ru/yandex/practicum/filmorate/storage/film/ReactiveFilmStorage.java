@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link FilmStorage} for the reactive film API. Lists are emitted as they are read
+ * and only as fast as the subscriber requests them. Also answers the reference lookups the film API validates
+ * against, so that a request never leaves the reactive driver.
+ */
+public interface ReactiveFilmStorage {
+
+    Mono<Film> addFilm(Film film);
+
+    Mono<Film> updateFilm(Film film);
+
+    Mono<Void> deleteFilm(long id);
+
+    Mono<Film> getFilmById(long id);
+
+    Flux<Film> getAllFilms();
+
+    Mono<Void> addLike(long filmId, long userId);
+
+    Mono<Void> removeLike(long filmId, long userId);
+
+    Flux<Film> getPopularFilms(int count);
+
+    Mono<Boolean> mpaExists(long mpaId);
+
+    /**
+     * The ids of {@code genreIds} that exist.
+     */
+    Flux<Long> findGenreIds(List<Long> genreIds);
+
+    Mono<Boolean> userExists(long userId);
+}
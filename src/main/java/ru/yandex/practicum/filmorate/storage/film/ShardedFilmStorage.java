@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.ClaimableTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions films, together with their genres and likes, across several databases. Shard {@code i} of
+ * {@code n} generates ids {@code i + 1, i + 1 + n, ...}, so the owning shard of any film is
+ * {@code (id - 1) % n}. New films are placed round-robin; list queries fan out to all shards in parallel, and a
+ * shard query no pool thread has picked up yet is run by the waiting thread itself.
+ */
+@Slf4j
+public class ShardedFilmStorage implements FilmStorage {
+    private static final Comparator<Film> BY_LIKES_DESC = Comparator
+            .comparingInt((Film film) -> film.getLikes().size()).reversed()
+            .thenComparing(Film::getId);
+
+    private final List<FilmStorage> shards;
+    private final Executor executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedFilmStorage(List<FilmStorage> shards, Executor executor) {
+        this.shards = List.copyOf(shards);
+        this.executor = executor;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(Long filmId) {
+        if (filmId == null || filmId < 1) {
+            throw new NotFoundException("Фильм с id=" + filmId + " не найден");
+        }
+        return (int) ((filmId - 1) % shards.size());
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        int shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+        Film added = shards.get(shard).addFilm(film);
+        log.info("Film {} placed on shard {}", added.getId(), shard);
+        return added;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        return shardFor(film.getId()).updateFilm(film);
+    }
+
+    @Override
+    public void deleteFilm(Long id) {
+        shardFor(id).deleteFilm(id);
+    }
+
+    @Override
+    public Optional<Film> getFilmById(Long id) {
+        if (id == null || id < 1) {
+            return Optional.empty();
+        }
+        return shardFor(id).getFilmById(id);
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        List<Film> films = new ArrayList<>();
+        for (List<Film> shardFilms : fanOut(FilmStorage::getAllFilms)) {
+            films.addAll(shardFilms);
+        }
+        films.sort(Comparator.comparing(Film::getId));
+        return films;
+    }
+
+    /**
+     * Asks only the shards that own some of the ids, concurrently.
+     */
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long id : ids) {
+            if (id != null && id > 0) {
+                idsByShard.computeIfAbsent(shardOf(id), shard -> new ArrayList<>()).add(id);
+            }
+        }
+        List<ClaimableTask<List<Film>>> tasks = new ArrayList<>(idsByShard.size());
+        idsByShard.forEach((shard, shardIds) -> tasks.add(ClaimableTask.submit(
+                () -> shards.get(shard).getFilmsByIds(shardIds), executor)));
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (List<Film> shardFilms : join(tasks)) {
+            shardFilms.forEach(film -> filmsById.put(film.getId(), film));
+        }
+        return ids.stream()
+                .distinct()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        shardFor(filmId).addLike(filmId, userId);
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        shardFor(filmId).removeLike(filmId, userId);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        List<Film> candidates = new ArrayList<>();
+        for (List<Film> shardTop : fanOut(shard -> shard.getPopularFilms(count))) {
+            candidates.addAll(shardTop);
+        }
+        candidates.sort(BY_LIKES_DESC);
+        return candidates.size() > count ? new ArrayList<>(candidates.subList(0, count)) : candidates;
+    }
+
+    private FilmStorage shardFor(Long filmId) {
+        return shards.get(shardOf(filmId));
+    }
+
+    private <T> List<T> fanOut(Function<FilmStorage, T> query) {
+        List<ClaimableTask<T>> tasks = new ArrayList<>(shards.size());
+        for (FilmStorage shard : shards) {
+            tasks.add(ClaimableTask.submit(() -> query.apply(shard), executor));
+        }
+        return join(tasks);
+    }
+
+    private static <T> List<T> join(List<ClaimableTask<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (ClaimableTask<T> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Decorator that lets identical concurrent reads share one delegate call. Writes detach in-flight reads they may
+ * have changed, so a caller reading after its own write never joins a query that started before it. Every caller
+ * gets its own copies of the shared users.
+ */
+public class CoalescingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+
+    private final SingleFlight<Long, Optional<User>> byId = new SingleFlight<>();
+    private final SingleFlight<Boolean, List<User>> all = new SingleFlight<>();
+    private final SingleFlight<Long, List<User>> friends = new SingleFlight<>();
+    private final SingleFlight<List<Long>, List<User>> commonFriends = new SingleFlight<>();
+    private final SingleFlight<Long, Integer> friendCounts = new SingleFlight<>();
+
+    public CoalescingUserStorage(UserStorage delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public User addUser(User user) {
+        User added = delegate.addUser(user);
+        all.forgetAll();
+        return added;
+    }
+
+    @Override
+    public User updateUser(User user) {
+        User updated = delegate.updateUser(user);
+        byId.forget(user.getId());
+        all.forgetAll();
+        friends.forgetAll();
+        commonFriends.forgetAll();
+        return updated;
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        delegate.deleteUser(id);
+        byId.forget(id);
+        all.forgetAll();
+        friends.forgetAll();
+        commonFriends.forgetAll();
+        friendCounts.forgetAll();
+    }
+
+    @Override
+    public Optional<User> getUserById(Long id) {
+        return byId.run(id, () -> delegate.getUserById(id)).map(CoalescingUserStorage::copy);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return copies(all.run(Boolean.TRUE, delegate::getAllUsers));
+    }
+
+    /**
+     * Shares per-id loads with {@link #getUserById}: ids already being loaded are joined and only the rest go to
+     * the delegate, in one call. Null ids match no user and are skipped.
+     */
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        List<Long> requested = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Optional<User>> users = byId.runAll(requested, missing -> {
+            Map<Long, Optional<User>> loaded = new HashMap<>();
+            missing.forEach(id -> loaded.put(id, Optional.empty()));
+            delegate.getUsersByIds(missing).forEach(user -> loaded.put(user.getId(), Optional.of(user)));
+            return loaded;
+        });
+        return requested.stream()
+                .map(users::get)
+                .flatMap(Optional::stream)
+                .map(CoalescingUserStorage::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        delegate.addFriend(userId, friendId);
+        forgetFriendships(userId, friendId);
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        delegate.removeFriend(userId, friendId);
+        forgetFriendships(userId, friendId);
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) {
+        return copies(friends.run(userId, () -> delegate.getFriends(userId)));
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) {
+        return copies(commonFriends.run(List.of(userId, otherId), () -> delegate.getCommonFriends(userId, otherId)));
+    }
+
+    @Override
+    public List<User> getFriends(Long userId, Long afterId, int limit) {
+        return delegate.getFriends(userId, afterId, limit);
+    }
+
+    @Override
+    public int getFriendCount(Long userId) {
+        return friendCounts.run(userId, () -> delegate.getFriendCount(userId));
+    }
+
+    @Override
+    public List<User> getCommonFriends(List<Long> userIds) {
+        return copies(commonFriends.run(List.copyOf(userIds), () -> delegate.getCommonFriends(userIds)));
+    }
+
+    private static List<User> copies(List<User> users) {
+        List<User> copies = new ArrayList<>(users.size());
+        users.forEach(user -> copies.add(copy(user)));
+        return copies;
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getFriends(), user.getEmail(), user.getLogin(), user.getName(),
+                user.getBirthday());
+    }
+
+    private void forgetFriendships(Long userId, Long friendId) {
+        friends.forget(userId);
+        friends.forget(friendId);
+        commonFriends.forgetAll();
+        friendCounts.forget(userId);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.eventlog.EventLog;
+import ru.yandex.practicum.filmorate.eventlog.LogEvent;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Records friendship changes in the {@link EventLog} instead of writing them to the delegate; the delegate is
+ * brought up to date by the "users" projection. Reads go to the delegate and may lag behind an acknowledged change.
+ */
+public class EventSourcedUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final EventLog eventLog;
+
+    public EventSourcedUserStorage(UserStorage delegate, EventLog eventLog) {
+        this.delegate = delegate;
+        this.eventLog = eventLog;
+        eventLog.project("users", this::apply);
+    }
+
+    @Override
+    public User addUser(User user) {
+        return delegate.addUser(user);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        return delegate.updateUser(user);
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        delegate.deleteUser(id);
+    }
+
+    @Override
+    public Optional<User> getUserById(Long id) {
+        return delegate.getUserById(id);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        return delegate.getUsersByIds(ids);
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        eventLog.append(LogEvent.Type.FRIEND_ADDED, userId, friendId);
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        eventLog.append(LogEvent.Type.FRIEND_REMOVED, userId, friendId);
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) {
+        return delegate.getFriends(userId);
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) {
+        return delegate.getCommonFriends(userId, otherId);
+    }
+
+    @Override
+    public List<User> getFriends(Long userId, Long afterId, int limit) {
+        return delegate.getFriends(userId, afterId, limit);
+    }
+
+    @Override
+    public int getFriendCount(Long userId) {
+        return delegate.getFriendCount(userId);
+    }
+
+    @Override
+    public List<User> getCommonFriends(List<Long> userIds) {
+        return delegate.getCommonFriends(userIds);
+    }
+
+    private void apply(LogEvent event) {
+        switch (event.type()) {
+            case FRIEND_ADDED -> delegate.addFriend(event.subjectId(), event.objectId());
+            case FRIEND_REMOVED -> delegate.removeFriend(event.subjectId(), event.objectId());
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+import ru.yandex.practicum.filmorate.util.LongLongHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory adjacency index of {@code user_friends}, loaded on first use and then kept current from
+ * {@link UserChangeEvent}s. Changes are published before their transactions commit, so those that arrive before
+ * the load are kept, up to {@code MAX_PENDING} of the latest, and applied in order on top of it. Both directions
+ * are indexed so that a search can also walk towards a user along the edges that lead into it. Traversals keep visited users in primitive maps and stop after {@code maxVisits}
+ * discovered users, whatever the size of the graph.
+ */
+@Slf4j
+@Component
+public class FriendGraph {
+    private static final long ROOT = 0;
+    private static final int MAX_PENDING = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxVisits;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongLongHashMap slots = new LongLongHashMap();
+    private long[][] out = new long[16][];
+    private long[][] in = new long[16][];
+    private int[] outSize = new int[16];
+    private int[] inSize = new int[16];
+    private final Deque<UserChangeEvent> pending = new ArrayDeque<>();
+    private long droppedPending;
+    private volatile boolean loaded;
+
+    public FriendGraph(JdbcTemplate jdbcTemplate, @Value("${filmorate.graph.max-visits:1000000}") int maxVisits) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxVisits = maxVisits;
+    }
+
+    public record Reach(int depth, long count, boolean truncated) {
+    }
+
+    /**
+     * Shortest chain of user ids from {@code from} to {@code to}, both included, with at most {@code maxDepth}
+     * friendships in it. Searches from both ends at once, always expanding the smaller frontier.
+     *
+     * @return an empty list if there is no such chain
+     * @throws BudgetExceededException if the search discovered {@code maxVisits} users without finishing
+     */
+    public List<Long> shortestPath(long from, long to, int maxDepth) {
+        if (from == to) {
+            return List.of(from);
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Side forward = new Side(from, true);
+            Side backward = new Side(to, false);
+            int[] visits = {0};
+            for (int depth = 0; depth < maxDepth && forward.size > 0 && backward.size > 0; depth++) {
+                Side near = forward.size <= backward.size ? forward : backward;
+                Side far = near == forward ? backward : forward;
+                long[] meeting = {ROOT, Long.MAX_VALUE};
+                expand(near, visits, (node, parent) -> {
+                    if (far.parents.containsKey(node)) {
+                        int distance = far.depthOf(node);
+                        if (distance < meeting[1]) {
+                            meeting[0] = node;
+                            meeting[1] = distance;
+                        }
+                    }
+                });
+                if (meeting[0] != ROOT) {
+                    return join(forward, backward, meeting[0]);
+                }
+            }
+            return List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of users reachable from {@code from} in at most {@code depth} friendships, not counting the user.
+     * A traversal that runs out of budget reports the users found so far and sets {@link Reach#truncated()}.
+     */
+    public Reach reach(long from, int depth) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Side side = new Side(from, true);
+            int[] visits = {0};
+            int level = 0;
+            try {
+                while (level < depth && side.size > 0) {
+                    expand(side, visits, (node, parent) -> {
+                    });
+                    level++;
+                }
+            } catch (BudgetExceededException e) {
+                return new Reach(depth, side.parents.size() - 1, true);
+            }
+            return new Reach(depth, side.parents.size() - 1, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onUserChange(UserChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            // The load may read the rows from before this change if its transaction has not committed yet. Every
+            // change sets the state of its edges, so applying one that the load already saw is harmless.
+            if (!loaded) {
+                if (pending.size() == MAX_PENDING) {
+                    pending.removeFirst();
+                    if (droppedPending++ == 0) {
+                        log.warn("More than {} friendship changes arrived before the friend graph was loaded; " +
+                                "dropping the oldest, which the load only sees if they have committed by then",
+                                MAX_PENDING);
+                    }
+                }
+                pending.addLast(event);
+                return;
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the index, so the next traversal loads it again.
+     */
+    @EventListener
+    public void onCachesReset(CachesResetEvent event) {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            slots.clear();
+            out = new long[16][];
+            in = new long[16][];
+            outSize = new int[16];
+            inSize = new int[16];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static class BudgetExceededException extends RuntimeException {
+        public BudgetExceededException(int visits) {
+            super("Обход графа друзей остановлен после " + visits + " пользователей");
+        }
+    }
+
+    private interface Discovery {
+        void accept(long node, long parent);
+    }
+
+    private final class Side {
+        final LongLongHashMap parents = new LongLongHashMap();
+        final boolean forward;
+        long[] frontier = new long[16];
+        int size;
+
+        Side(long start, boolean forward) {
+            this.forward = forward;
+            parents.put(start, ROOT);
+            frontier[size++] = start;
+        }
+
+        int depthOf(long node) {
+            int depth = 0;
+            for (long parent = parents.get(node); parent != ROOT; parent = parents.get(parent)) {
+                depth++;
+            }
+            return depth;
+        }
+    }
+
+    // Replaces the frontier of the side with the users first discovered from it.
+    private void expand(Side side, int[] visits, Discovery discovery) {
+        long[][] edges = side.forward ? out : in;
+        int[] sizes = side.forward ? outSize : inSize;
+        long[] next = new long[16];
+        int nextSize = 0;
+        for (int i = 0; i < side.size; i++) {
+            long node = side.frontier[i];
+            long slot = slots.get(node);
+            if (slot == LongLongHashMap.NO_VALUE) {
+                continue;
+            }
+            long[] neighbours = edges[(int) slot];
+            for (int j = 0; j < sizes[(int) slot]; j++) {
+                long neighbour = neighbours[j];
+                if (side.parents.containsKey(neighbour)) {
+                    continue;
+                }
+                if (++visits[0] > maxVisits) {
+                    throw new BudgetExceededException(maxVisits);
+                }
+                side.parents.put(neighbour, node);
+                discovery.accept(neighbour, node);
+                if (nextSize == next.length) {
+                    next = Arrays.copyOf(next, nextSize * 2);
+                }
+                next[nextSize++] = neighbour;
+            }
+        }
+        side.frontier = next;
+        side.size = nextSize;
+    }
+
+    private static List<Long> join(Side forward, Side backward, long meeting) {
+        List<Long> path = new ArrayList<>();
+        for (long node = meeting; node != ROOT; node = forward.parents.get(node)) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        for (long node = backward.parents.get(meeting); node != ROOT; node = backward.parents.get(node)) {
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                long started = System.nanoTime();
+                int[] edges = {0};
+                jdbcTemplate.query("SELECT f.user_id, f.friend_id FROM user_friends f " +
+                        "JOIN users u ON u.id = f.user_id AND u.deleted_at IS NULL " +
+                        "JOIN users v ON v.id = f.friend_id AND v.deleted_at IS NULL", rs -> {
+                    addEdge(rs.getLong("user_id"), rs.getLong("friend_id"));
+                    edges[0]++;
+                });
+                for (UserChangeEvent event : pending) {
+                    apply(event);
+                }
+                int replayed = pending.size();
+                pending.clear();
+                loaded = true;
+                log.info("Loaded friend graph with {} users and {} friendships in {} ms, " +
+                        "{} changes replayed, {} dropped", slots.size(), edges[0],
+                        (System.nanoTime() - started) / 1_000_000, replayed, droppedPending);
+                droppedPending = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(UserChangeEvent event) {
+        switch (event.getType()) {
+            case FRIEND_ADDED -> addEdge(event.getUserId(), event.getFriendId());
+            case FRIEND_REMOVED -> removeEdge(event.getUserId(), event.getFriendId());
+            case DELETED -> removeUser(event.getUserId());
+            default -> {
+            }
+        }
+    }
+
+    private void addEdge(long userId, long friendId) {
+        int from = slot(userId);
+        int to = slot(friendId);
+        if (indexOf(out[from], outSize[from], friendId) >= 0) {
+            return;
+        }
+        out[from] = append(out[from], outSize[from]++, friendId);
+        in[to] = append(in[to], inSize[to]++, userId);
+    }
+
+    private void removeEdge(long userId, long friendId) {
+        long from = slots.get(userId);
+        long to = slots.get(friendId);
+        if (from != LongLongHashMap.NO_VALUE) {
+            outSize[(int) from] = remove(out[(int) from], outSize[(int) from], friendId);
+        }
+        if (to != LongLongHashMap.NO_VALUE) {
+            inSize[(int) to] = remove(in[(int) to], inSize[(int) to], userId);
+        }
+    }
+
+    private void removeUser(long userId) {
+        long slot = slots.get(userId);
+        if (slot == LongLongHashMap.NO_VALUE) {
+            return;
+        }
+        int s = (int) slot;
+        for (int i = outSize[s] - 1; i >= 0; i--) {
+            removeEdge(userId, out[s][i]);
+        }
+        for (int i = inSize[s] - 1; i >= 0; i--) {
+            removeEdge(in[s][i], userId);
+        }
+    }
+
+    private int slot(long userId) {
+        long slot = slots.get(userId);
+        if (slot != LongLongHashMap.NO_VALUE) {
+            return (int) slot;
+        }
+        int next = slots.size();
+        if (next == out.length) {
+            int capacity = next * 2;
+            out = Arrays.copyOf(out, capacity);
+            in = Arrays.copyOf(in, capacity);
+            outSize = Arrays.copyOf(outSize, capacity);
+            inSize = Arrays.copyOf(inSize, capacity);
+        }
+        slots.put(userId, next);
+        return next;
+    }
+
+    private static long[] append(long[] list, int size, long value) {
+        if (list == null) {
+            list = new long[4];
+        } else if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = value;
+        return list;
+    }
+
+    private static int remove(long[] list, int size, long value) {
+        int index = indexOf(list, size, value);
+        if (index < 0) {
+            return size;
+        }
+        list[index] = list[size - 1];
+        return size - 1;
+    }
+
+    private static int indexOf(long[] list, int size, long value) {
+        for (int i = 0; i < size; i++) {
+            if (list[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -3,37 +3,58 @@ package ru.yandex.practicum.filmorate.storage.user;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.SnapshotFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+/**
+ * User fields are never modified in place: an update replaces the user with a copy under the map's per-key lock.
+ * Friend ids live in a concurrent set per user that every version of the user is built on, so a friendship change
+ * costs one set operation instead of a copy of the user, and readers and snapshots can walk the maps without locking.
+ */
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private long idCounter = 0;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> friendIds = new ConcurrentHashMap<>();
+    private final AtomicLong idCounter = new AtomicLong();
 
     @Override
     public User addUser(User user) {
-        user.setId(++idCounter);
-        users.put(user.getId(), user);
-        return user;
+        user.setId(idCounter.incrementAndGet());
+        Set<Long> friends = ConcurrentHashMap.newKeySet();
+        friends.addAll(user.getFriends());
+        User stored = copy(user, friends);
+        friendIds.put(stored.getId(), friends);
+        users.put(stored.getId(), stored);
+        return stored;
     }
 
     @Override
     public User updateUser(User user) {
-        if (user.getId() == null || !users.containsKey(user.getId())) {
+        if (user.getId() == null) {
             throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден");
         }
-        users.put(user.getId(), user);
-        return user;
+        return users.compute(user.getId(), (id, existing) -> {
+            if (existing == null) {
+                throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден");
+            }
+            return copy(user, friendIds.get(id));
+        });
     }
 
     @Override
     public void deleteUser(Long id) {
-        if (!users.containsKey(id)) {
+        if (users.remove(id) == null) {
             throw new NotFoundException("Пользователь с id=" + id + " не найден");
         }
-        users.remove(id);
+        friendIds.remove(id);
     }
 
     @Override
@@ -46,29 +67,33 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addFriend(Long userId, Long friendId) {
-        User user = getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден"));
-        User friend = getUserById(friendId)
+        getUserById(friendId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id=" + friendId + " не найден"));
-        user.addFriend(friendId);
+        friendsOf(userId).add(friendId);
     }
 
     @Override
     public void removeFriend(Long userId, Long friendId) {
-        User user = getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден"));
-        User friend = getUserById(friendId)
+        getUserById(friendId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id=" + friendId + " не найден"));
-        user.removeFriend(friendId);
+        friendsOf(userId).remove(friendId);
     }
 
     @Override
     public List<User> getFriends(Long userId) {
-        User user = getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден"));
-        return user.getFriends().stream()
+        return friendsOf(userId).stream()
                 .map(this::getUserById)
                 .filter(Optional::isPresent)
                 .map(Optional::get)
@@ -77,13 +102,8 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public List<User> getCommonFriends(Long userId, Long otherUserId) {
-        User user = getUserById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден"));
-        User otherUser = getUserById(otherUserId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id=" + otherUserId + " не найден"));
-
-        Set<Long> userFriends = user.getFriends();
-        Set<Long> otherUserFriends = otherUser.getFriends();
+        Set<Long> userFriends = friendsOf(userId);
+        Set<Long> otherUserFriends = friendsOf(otherUserId);
 
         Set<Long> commonFriendsIds = new HashSet<>(userFriends);
         commonFriendsIds.retainAll(otherUserFriends);
@@ -94,4 +114,110 @@ public class InMemoryUserStorage implements UserStorage {
                 .map(Optional::get)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<User> getFriends(Long userId, Long afterId, int limit) {
+        return friendsOf(userId).stream()
+                .filter(id -> afterId == null || id > afterId)
+                .sorted()
+                .map(this::getUserById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int getFriendCount(Long userId) {
+        return friendsOf(userId).size();
+    }
+
+    @Override
+    public List<User> getCommonFriends(List<Long> userIds) {
+        List<Set<Long>> friendSets = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            friendSets.add(new HashSet<>(friendsOf(userId)));
+        }
+        friendSets.sort(Comparator.comparingInt(Set::size));
+        Set<Long> common = new TreeSet<>(friendSets.get(0));
+        for (int i = 1; i < friendSets.size() && !common.isEmpty(); i++) {
+            common.retainAll(friendSets.get(i));
+        }
+        return common.stream()
+                .map(this::getUserById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    public void saveSnapshot(Path file) throws IOException {
+        SnapshotFile.write(file, SNAPSHOT_VERSION, this::writeSnapshot);
+    }
+
+    /**
+     * Replaces the contents with the snapshot in {@code file}.
+     *
+     * @return {@code false} if there is no snapshot yet
+     */
+    public boolean loadSnapshot(Path file) throws IOException {
+        return SnapshotFile.read(file, SNAPSHOT_VERSION, this::readSnapshot);
+    }
+
+    private void writeSnapshot(SnapshotFile.Writer writer) throws IOException {
+        List<User> snapshot = new ArrayList<>(users.values());
+        writer.putLong(idCounter.get());
+        writer.putInt(snapshot.size());
+        for (User user : snapshot) {
+            writer.putLong(user.getId());
+            writer.putString(user.getEmail());
+            writer.putString(user.getLogin());
+            writer.putString(user.getName());
+            writer.putDate(user.getBirthday());
+            Set<Long> friends = user.getFriends();
+            writer.putInt(friends.size());
+            for (Long friendId : friends) {
+                writer.putLong(friendId);
+            }
+        }
+    }
+
+    private void readSnapshot(SnapshotFile.Reader reader) {
+        long counter = reader.getLong();
+        int count = reader.getInt();
+        Map<Long, User> loaded = new HashMap<>(count * 4 / 3 + 1);
+        Map<Long, Set<Long>> loadedFriends = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            Set<Long> friends = ConcurrentHashMap.newKeySet();
+            User user = new User(reader.getLong(), friends, reader.getString(), reader.getString(),
+                    reader.getString(), reader.getDate());
+            int friendCount = reader.getInt();
+            for (int f = 0; f < friendCount; f++) {
+                friends.add(reader.getLong());
+            }
+            loaded.put(user.getId(), user);
+            loadedFriends.put(user.getId(), friends);
+        }
+        users.clear();
+        friendIds.clear();
+        users.putAll(loaded);
+        friendIds.putAll(loadedFriends);
+        idCounter.set(counter);
+    }
+
+    private Set<Long> friendsOf(Long userId) {
+        Set<Long> friends = userId == null ? null : friendIds.get(userId);
+        if (friends == null) {
+            throw new NotFoundException("Пользователь с id=" + userId + " не найден");
+        }
+        return friends;
+    }
+
+    private static User copy(User user, Set<Long> friends) {
+        return new User(user.getId(), friends, user.getEmail(), user.getLogin(), user.getName(),
+                user.getBirthday());
+    }
+}
@@ -1,10 +1,15 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.DataSourceRoute;
+import ru.yandex.practicum.filmorate.storage.InClause;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -15,11 +20,13 @@ import java.util.*;
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public User addUser(User user) {
         SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
                 .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
                 .usingGeneratedKeyColumns("id");
 
         Map<String, Object> values = new HashMap<>();
@@ -30,47 +37,68 @@ public class UserDbStorage implements UserStorage {
 
         Long id = simpleJdbcInsert.executeAndReturnKey(values).longValue();
         user.setId(id);
+        eventPublisher.publishEvent(UserChangeEvent.of(UserChangeEvent.Type.CREATED, id));
         return user;
     }
 
     @Override
     public User updateUser(User user) {
-        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
+        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? " +
+                "WHERE id = ? AND deleted_at IS NULL";
         jdbcTemplate.update(sql, user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId());
+        eventPublisher.publishEvent(UserChangeEvent.of(UserChangeEvent.Type.UPDATED, user.getId()));
         return user;
     }
 
     @Override
     public Optional<User> getUserById(Long id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, id);
+        String sql = "SELECT * FROM users WHERE id = ? AND deleted_at IS NULL";
+        List<User> users = DataSourceRoute.read("user:" + id, () -> jdbcTemplate.query(sql, this::mapRowToUser, id));
         return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
     }
 
     @Override
     public List<User> getAllUsers() {
-        String sql = "SELECT * FROM users";
-        return jdbcTemplate.query(sql, this::mapRowToUser);
+        String sql = "SELECT * FROM users WHERE deleted_at IS NULL";
+        return DataSourceRoute.read(() -> jdbcTemplate.query(sql, this::mapRowToUser));
     }
 
     @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        Map<Long, User> usersById = new HashMap<>();
+        DataSourceRoute.read(() -> findUsersByIds(distinctIds)).forEach(user -> usersById.put(user.getId(), user));
+        return distinctIds.stream().map(usersById::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    @Transactional
     public void addFriend(Long userId, Long friendId) {
         String sql = "INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, userId, friendId);
+        jdbcTemplate.update("UPDATE users SET friend_count = friend_count + 1 WHERE id = ?", userId);
+        eventPublisher.publishEvent(new UserChangeEvent(UserChangeEvent.Type.FRIEND_ADDED, userId, friendId));
     }
 
     @Override
+    @Transactional
     public void removeFriend(Long userId, Long friendId) {
         String sql = "DELETE FROM user_friends WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, userId, friendId);
+        if (jdbcTemplate.update(sql, userId, friendId) > 0) {
+            jdbcTemplate.update("UPDATE users SET friend_count = friend_count - 1 WHERE id = ?", userId);
+            eventPublisher.publishEvent(new UserChangeEvent(UserChangeEvent.Type.FRIEND_REMOVED, userId, friendId));
+        }
     }
 
     @Override
     public List<User> getFriends(Long userId) {
         String sql = "SELECT u.* FROM users u " +
                 "JOIN user_friends f ON u.id = f.friend_id " +
-                "WHERE f.user_id = ?";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId);
+                "WHERE f.user_id = ? AND u.deleted_at IS NULL";
+        return DataSourceRoute.read("user:" + userId, () -> jdbcTemplate.query(sql, this::mapRowToUser, userId));
     }
 
     @Override
@@ -78,14 +106,86 @@ public class UserDbStorage implements UserStorage {
         String sql = "SELECT u.* FROM users u " +
                 "JOIN user_friends f1 ON u.id = f1.friend_id " +
                 "JOIN user_friends f2 ON u.id = f2.friend_id " +
-                "WHERE f1.user_id = ? AND f2.user_id = ?";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
+                "WHERE f1.user_id = ? AND f2.user_id = ? AND u.deleted_at IS NULL";
+        return DataSourceRoute.read("user:" + userId,
+                () -> jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId));
     }
 
     @Override
+    public List<User> getFriends(Long userId, Long afterId, int limit) {
+        String sql = "SELECT u.* FROM user_friends f " +
+                "JOIN users u ON u.id = f.friend_id " +
+                "WHERE f.user_id = ? AND f.friend_id > ? AND u.deleted_at IS NULL " +
+                "ORDER BY f.friend_id LIMIT ?";
+        long after = afterId == null ? 0 : afterId;
+        return DataSourceRoute.read("user:" + userId,
+                () -> jdbcTemplate.query(sql, this::mapRowToUser, userId, after, limit));
+    }
+
+    @Override
+    public int getFriendCount(Long userId) {
+        String sql = "SELECT friend_count FROM users WHERE id = ?";
+        List<Integer> counts = DataSourceRoute.read("user:" + userId,
+                () -> jdbcTemplate.queryForList(sql, Integer.class, userId));
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    /**
+     * Intersects friend id sets from the smallest to the largest, using the friend counters for the order. Every
+     * step after the first only probes the {@code user_friends} primary key for the remaining candidates, so
+     * the cost is bounded by the smallest set rather than by the sum of all of them.
+     */
+    @Override
+    public List<User> getCommonFriends(List<Long> userIds) {
+        List<String> stickyKeys = userIds.stream().distinct().map(id -> "user:" + id).toList();
+        return DataSourceRoute.read(stickyKeys, () -> {
+            List<Long> order = new ArrayList<>(new LinkedHashSet<>(userIds));
+            Map<Long, Integer> degrees = new HashMap<>();
+            for (List<Long> batch : InClause.batches(order)) {
+                jdbcTemplate.query("SELECT id, friend_count FROM users WHERE id IN (" +
+                                InClause.placeholders(batch.size()) + ")",
+                        rs -> {
+                            degrees.put(rs.getLong("id"), rs.getInt("friend_count"));
+                        }, InClause.args(batch));
+            }
+            order.sort(Comparator.comparingInt(id -> degrees.getOrDefault(id, 0)));
+
+            List<Long> candidates = jdbcTemplate.queryForList(
+                    "SELECT friend_id FROM user_friends WHERE user_id = ? ORDER BY friend_id", Long.class, order.get(0));
+            for (int i = 1; i < order.size() && !candidates.isEmpty(); i++) {
+                Set<Long> kept = new TreeSet<>();
+                for (List<Long> batch : InClause.batches(candidates)) {
+                    Object[] args = new Object[1 + InClause.bucketSize(batch.size())];
+                    args[0] = order.get(i);
+                    System.arraycopy(InClause.args(batch), 0, args, 1, args.length - 1);
+                    kept.addAll(jdbcTemplate.queryForList("SELECT friend_id FROM user_friends " +
+                            "WHERE user_id = ? AND friend_id IN (" + InClause.placeholders(batch.size()) + ")",
+                            Long.class, args));
+                }
+                candidates = new ArrayList<>(kept);
+            }
+            return findUsersByIds(candidates);
+        });
+    }
+
+    @Override
+    @Transactional
     public void deleteUser(Long userId) {
+        jdbcTemplate.update("UPDATE users SET friend_count = friend_count - 1 " +
+                "WHERE id IN (SELECT user_id FROM user_friends WHERE friend_id = ?)", userId);
         String sql = "DELETE FROM users WHERE id = ?";
-        jdbcTemplate.update(sql, userId);
+        if (jdbcTemplate.update(sql, userId) > 0) {
+            eventPublisher.publishEvent(UserChangeEvent.of(UserChangeEvent.Type.DELETED, userId));
+        }
+    }
+
+    private List<User> findUsersByIds(List<Long> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        for (List<Long> batch : InClause.batches(ids)) {
+            users.addAll(jdbcTemplate.query("SELECT * FROM users WHERE id IN (" +
+                    InClause.placeholders(batch.size()) + ") AND deleted_at IS NULL ORDER BY id", this::mapRowToUser, InClause.args(batch)));
+        }
+        return users;
     }
 
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
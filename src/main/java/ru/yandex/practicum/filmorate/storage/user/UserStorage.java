@@ -16,6 +16,11 @@ public interface UserStorage {
 
     List<User> getAllUsers();
 
+    /**
+     * Users with the given ids in the order of the list; unknown ids are skipped.
+     */
+    List<User> getUsersByIds(List<Long> ids);
+
     void addFriend(Long userId, Long friendId);
 
     void removeFriend(Long userId, Long friendId);
@@ -24,4 +29,16 @@ public interface UserStorage {
 
     List<User> getCommonFriends(Long userId, Long otherId);
 
+    /**
+     * Friends with ids greater than {@code afterId} (all friends if it is {@code null}), ordered by id.
+     */
+    List<User> getFriends(Long userId, Long afterId, int limit);
+
+    int getFriendCount(Long userId);
+
+    /**
+     * Friends shared by all of {@code userIds}, ordered by id.
+     */
+    List<User> getCommonFriends(List<Long> userIds);
+
 }
\ No newline at end of file
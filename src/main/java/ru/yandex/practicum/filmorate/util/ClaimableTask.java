@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A task handed to an executor that the waiting thread runs itself if no pool thread has started it yet. Joining
+ * therefore never waits for a free pool thread, even when the caller is one of them: a bounded pool whose threads
+ * all wait on queued subtasks cannot deadlock.
+ */
+public final class ClaimableTask<T> {
+    private final Supplier<T> action;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    private ClaimableTask(Supplier<T> action) {
+        this.action = action;
+    }
+
+    public static <T> ClaimableTask<T> submit(Supplier<T> action, Executor executor) {
+        ClaimableTask<T> task = new ClaimableTask<>(action);
+        try {
+            executor.execute(task::run);
+        } catch (RejectedExecutionException e) {
+            // Run by join()
+        }
+        return task;
+    }
+
+    /**
+     * Waits for the result, running the task on the current thread if it has not started.
+     */
+    public T join() {
+        run();
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        if (!claimed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            result.complete(action.get());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
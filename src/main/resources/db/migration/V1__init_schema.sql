@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS users, films, genres, mpa_ratings, user_friends, film_likes, film_genres;
-
 -- Таблица пользователей
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -0,0 +1,5 @@
+-- Обратные выборки и каскадные удаления по второй колонке составных ключей
+CREATE INDEX IF NOT EXISTS idx_film_likes_user_id ON film_likes (user_id);
+CREATE INDEX IF NOT EXISTS idx_user_friends_friend_id ON user_friends (friend_id);
+CREATE INDEX IF NOT EXISTS idx_film_genres_genre_id ON film_genres (genre_id);
+CREATE INDEX IF NOT EXISTS idx_films_mpa_id ON films (mpa_id);
@@ -0,0 +1,4 @@
+-- Счётчик исходящих дружеских связей, поддерживается вместе с user_friends
+ALTER TABLE users ADD COLUMN IF NOT EXISTS friend_count INT DEFAULT 0 NOT NULL;
+
+UPDATE users u SET friend_count = (SELECT COUNT(*) FROM user_friends f WHERE f.user_id = u.id);
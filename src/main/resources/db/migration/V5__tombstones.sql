@@ -0,0 +1,15 @@
+-- Отметки удаления: строка скрыта от чтения, зависимые строки удаляются фоновой очисткой
+ALTER TABLE films ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS purge_jobs (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity VARCHAR(10) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    rows_total BIGINT NOT NULL,
+    rows_purged BIGINT DEFAULT 0 NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_purge_jobs_unfinished ON purge_jobs (finished_at, id);
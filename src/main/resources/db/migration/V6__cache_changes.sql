@@ -0,0 +1,12 @@
+-- Журнал изменений для сброса кэшей других экземпляров, работающих с той же базой
+CREATE TABLE IF NOT EXISTS cache_changes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    node_id VARCHAR(36) NOT NULL,
+    entity VARCHAR(10) NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    related_id BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cache_changes_created ON cache_changes (created_at);
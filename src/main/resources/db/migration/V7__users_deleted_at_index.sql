@@ -0,0 +1,2 @@
+-- Чтения лайков при включённой очистке пропускают пользователей с отметкой удаления
+CREATE INDEX IF NOT EXISTS idx_users_deleted_at ON users (deleted_at);
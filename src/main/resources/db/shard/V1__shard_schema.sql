@@ -0,0 +1,36 @@
+-- Схема шарда фильмов: ${shardIndex} из ${shardCount}, id фильмов шарда дают остаток ${shardIndex} при делении (id - 1) на ${shardCount}
+CREATE TABLE IF NOT EXISTS mpa_ratings (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(10) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS genres (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS films (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH ${shardStart} INCREMENT BY ${shardCount}) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(200),
+    release_date DATE NOT NULL,
+    duration INT NOT NULL,
+    mpa_id BIGINT NOT NULL,
+    FOREIGN KEY (mpa_id) REFERENCES mpa_ratings(id) ON DELETE RESTRICT
+);
+
+CREATE TABLE IF NOT EXISTS film_genres (
+    film_id BIGINT NOT NULL,
+    genre_id BIGINT NOT NULL,
+    PRIMARY KEY (film_id, genre_id),
+    FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE,
+    FOREIGN KEY (genre_id) REFERENCES genres(id) ON DELETE CASCADE
+);
+
+-- Пользователи живут в основной БД, поэтому внешнего ключа на users нет
+CREATE TABLE IF NOT EXISTS film_likes (
+    film_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (film_id, user_id),
+    FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE
+);
@@ -0,0 +1,2 @@
+-- Фильмы шардов удаляются сразу, колонка нужна общим запросам чтения
+ALTER TABLE films ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
@@ -0,0 +1,6 @@
+-- Положение шарда в схеме шардирования на момент создания данных; при запуске сверяется с настройками
+CREATE TABLE IF NOT EXISTS shard_layout (
+    shard_index INT NOT NULL,
+    shard_count INT NOT NULL
+);
+INSERT INTO shard_layout (shard_index, shard_count) VALUES (${shardIndex}, ${shardCount});
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:analytics-rebuild;DB_CLOSE_DELAY=-1",
+        "filmorate.warmup.enabled=false"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class CatalogAnalyticsRebuildTests {
+    private final CatalogAnalytics analytics;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final HealthIndicator analyticsHealthIndicator;
+
+    @Test
+    void testStartupRebuildRunsInBackgroundAndGatesReadiness() throws InterruptedException {
+        await(analytics::isRebuilt);
+
+        assertThat(analyticsHealthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void testLikesOfDeletedUserStopCounting() throws InterruptedException {
+        await(analytics::isRebuilt);
+        Film film = filmService.addFilm(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 100, null,
+                new Mpa(1L, null), new ArrayList<>(List.of(new Genre(6L, null)))));
+        User user = userService.addUser(new User(null, null, "analytics@example.com", "analytics", "Analytics",
+                LocalDate.of(1990, 1, 1)));
+        filmService.addLike(film.getId(), user.getId());
+        long before = analytics.likesByGenre().getOrDefault(6L, 0L);
+
+        userService.deleteUser(user.getId());
+
+        await(() -> analytics.likesByGenre().getOrDefault(6L, 0L) == before - 1);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
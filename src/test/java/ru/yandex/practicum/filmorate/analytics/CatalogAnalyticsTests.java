@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.analytics;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogAnalyticsTests {
+    private final CatalogAnalytics analytics = new CatalogAnalytics(30, 10,
+            Clock.fixed(Instant.parse("2024-03-10T12:00:00Z"), ZoneOffset.UTC));
+
+    @Test
+    void testIncrementalUpdatesMatchRebuild() {
+        Film first = film(1L, 2000, 100, 1L, Set.of(), 1L, 2L);
+        Film second = film(2L, 2000, 140, 2L, Set.of(), 2L);
+        analytics.filmAdded(first);
+        analytics.filmAdded(second);
+        analytics.likeChanged(first, 10, 1);
+        first.addLike(10L);
+        analytics.likeChanged(first, 11, 1);
+        first.addLike(11L);
+        analytics.likeChanged(second, 10, 1);
+        second.addLike(10L);
+
+        Film moved = film(1L, 2010, 90, 2L, first.getLikes(), 3L);
+        analytics.filmUpdated(moved);
+
+        assertThat(analytics.likesByGenre()).isEqualTo(Map.of(2L, 1L, 3L, 2L));
+        assertThat(analytics.filmsByMpa()).isEqualTo(Map.of(2L, 2L));
+        assertThat(analytics.durationByYear()).containsExactly(
+                new CatalogAnalytics.YearDuration(2000, 1, 140.0),
+                new CatalogAnalytics.YearDuration(2010, 1, 90.0));
+
+        Map<Long, Long> likesByGenre = analytics.likesByGenre();
+        Map<Long, Long> filmsByMpa = analytics.filmsByMpa();
+        List<CatalogAnalytics.YearDuration> durationByYear = analytics.durationByYear();
+        analytics.rebuild(List.of(moved, second));
+        assertThat(analytics.likesByGenre()).isEqualTo(likesByGenre);
+        assertThat(analytics.filmsByMpa()).isEqualTo(filmsByMpa);
+        assertThat(analytics.durationByYear()).isEqualTo(durationByYear);
+    }
+
+    @Test
+    void testDeletedFilmAndRemovedLikesLeaveNoCounts() {
+        Film film = film(1L, 2000, 100, 1L, Set.of(10L), 1L);
+        analytics.filmAdded(film);
+        analytics.likeChanged(film, 10, -1);
+        film.removeLike(10L);
+        analytics.filmDeleted(film);
+
+        assertThat(analytics.likesByGenre()).isEmpty();
+        assertThat(analytics.filmsByMpa()).isEmpty();
+        assertThat(analytics.durationByYear()).isEmpty();
+    }
+
+    @Test
+    void testActiveUsersPerDay() {
+        analytics.userActive(1);
+        analytics.userActive(2);
+        analytics.userActive(1);
+
+        assertThat(analytics.activeUsers(7))
+                .containsExactly(new CatalogAnalytics.DayUsers(LocalDate.of(2024, 3, 10), 2));
+    }
+
+    private static Film film(Long id, int year, int duration, Long mpaId, Set<Long> likes, Long... genreIds) {
+        List<Genre> genres = Arrays.stream(genreIds).map(g -> new Genre(g, null)).toList();
+        return new Film(id, "Film" + id, "", LocalDate.of(year, 1, 1), duration, new HashSet<>(likes),
+                new Mpa(mpaId, null), genres);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.OffHeapFilmStorage;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Fills {@link InMemoryFilmStorage} and {@link OffHeapFilmStorage} with the same films and compares the heap and
+ * direct memory each one retains, plus the time of a popular-films query over the whole set.
+ * Run with {@code mvn test -Pbenchmark -Dtest=HeapFootprintBenchmark -Dbenchmark.films=1000000}.
+ */
+@Tag("benchmark")
+class HeapFootprintBenchmark {
+    private static final int FILMS = Integer.getInteger("benchmark.films", 200_000);
+    private static final int LIKES_PER_FILM = 10;
+    private static final List<Mpa> MPA = List.of(new Mpa(1L, "G"), new Mpa(2L, "PG"), new Mpa(3L, "PG-13"),
+            new Mpa(4L, "R"), new Mpa(5L, "NC-17"));
+    private static final List<Genre> GENRES = List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"),
+            new Genre(3L, "Мультфильм"), new Genre(4L, "Триллер"), new Genre(5L, "Документальный"),
+            new Genre(6L, "Боевик"));
+
+    @Test
+    void compareFootprint() {
+        measure("in-memory", () -> new InMemoryFilmStorage(event -> { }));
+        measure("off-heap", () -> new OffHeapFilmStorage(16 * 1024 * 1024, event -> { }));
+    }
+
+    private void measure(String label, Supplier<FilmStorage> factory) {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        FilmStorage storage = factory.get();
+        Random random = new Random(42);
+        for (int i = 0; i < FILMS; i++) {
+            List<Genre> genres = new ArrayList<>();
+            for (int g = 0; g < 1 + random.nextInt(3); g++) {
+                Genre genre = GENRES.get(random.nextInt(GENRES.size()));
+                genres.add(new Genre(genre.getId(), genre.getName()));
+            }
+            Mpa mpa = MPA.get(random.nextInt(MPA.size()));
+            Film film = storage.addFilm(new Film(null, "Фильм " + i, "Описание фильма номер " + i,
+                    LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                    60 + random.nextInt(120), new HashSet<>(), new Mpa(mpa.getId(), mpa.getName()), genres));
+            for (int like = 0; like < LIKES_PER_FILM; like++) {
+                storage.addLike(film.getId(), 1L + random.nextInt(1_000_000));
+            }
+        }
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+
+        long start = System.nanoTime();
+        storage.getPopularFilms(10);
+        long popularMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%-10s films=%d  heap=%7.1f MB  direct=%7.1f MB  bytes/film=%5d  popular(10)=%4d ms%n",
+                label, FILMS, heap / 1e6, direct / 1e6, (heap + direct) / FILMS, popularMillis);
+        Reference.reachabilityFence(storage);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
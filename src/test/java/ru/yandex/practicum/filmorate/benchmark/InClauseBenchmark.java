@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import ru.yandex.practicum.filmorate.storage.InClause;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compares per-length IN-lists with the power-of-two shapes of {@link InClause}: the hit rate of LRU statement
+ * caches sized like H2's per-session query cache (8) and pgjdbc's prepared statement cache (256), and the
+ * latency of the film_likes lookup itself. Run with {@code mvn test -Pbenchmark -Dtest=InClauseBenchmark}.
+ */
+@Tag("benchmark")
+class InClauseBenchmark {
+    private static final int FILMS = 5_000;
+    private static final int QUERIES = Integer.getInteger("benchmark.queries", 20_000);
+    private static final String SQL = "SELECT film_id, user_id FROM film_likes WHERE film_id IN (%s)";
+
+    @Test
+    void compareSqlShapes() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:in-clause-bench;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE film_likes (film_id BIGINT, user_id BIGINT, PRIMARY KEY (film_id, user_id))");
+        List<Object[]> rows = new ArrayList<>();
+        for (long film = 1; film <= FILMS; film++) {
+            for (long user = 1; user <= 5; user++) {
+                rows.add(new Object[]{film, user});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_likes VALUES (?, ?)", rows);
+
+        Random random = new Random(42);
+        List<List<Long>> workload = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            int size = 1 + random.nextInt(200);
+            List<Long> ids = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                ids.add(1L + random.nextInt(FILMS));
+            }
+            workload.add(ids);
+        }
+
+        report("per-length IN", jdbcTemplate, workload,
+                ids -> String.format(SQL, String.join(",", Collections.nCopies(ids.size(), "?"))),
+                List::toArray);
+        report("power-of-two IN", jdbcTemplate, workload,
+                ids -> String.format(SQL, InClause.placeholders(ids.size())),
+                InClause::args);
+        dataSource.destroy();
+    }
+
+    private void report(String label, JdbcTemplate jdbcTemplate, List<List<Long>> workload,
+                        Function<List<Long>, String> sql, Function<List<Long>, Object[]> args) {
+        LruCounter h2Cache = new LruCounter(8);
+        LruCounter pgCache = new LruCounter(256);
+        for (List<Long> ids : workload.subList(0, workload.size() / 4)) {
+            jdbcTemplate.query(sql.apply(ids), rs -> { }, args.apply(ids));
+        }
+        long start = System.nanoTime();
+        for (List<Long> ids : workload) {
+            String statement = sql.apply(ids);
+            h2Cache.access(statement);
+            pgCache.access(statement);
+            jdbcTemplate.query(statement, rs -> { }, args.apply(ids));
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / workload.size();
+        System.out.printf("%-16s shapes=%4d  hit(8)=%5.1f%%  hit(256)=%5.1f%%  avg=%8.1fus/query%n",
+                label, pgCache.distinct, h2Cache.hitRate(), pgCache.hitRate(), micros);
+    }
+
+    private static final class LruCounter {
+        private final Map<String, Boolean> cache;
+        private long hits;
+        private long accesses;
+        private int distinct;
+        private final Set<String> seen = new HashSet<>();
+
+        LruCounter(int capacity) {
+            this.cache = new LinkedHashMap<>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        void access(String sql) {
+            accesses++;
+            if (cache.put(sql, Boolean.TRUE) != null) {
+                hits++;
+            }
+            if (seen.add(sql)) {
+                distinct++;
+            }
+        }
+
+        double hitRate() {
+            return accesses == 0 ? 0 : 100.0 * hits / accesses;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load generator: every client sends the next request as soon as the previous one completes.
+ */
+class LoadDriver {
+    private final HttpClient client;
+    private final String baseUrl;
+
+    LoadDriver(int port) {
+        this.baseUrl = "http://localhost:" + port;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    String post(String path, String json) throws Exception {
+        return send("POST", path, json);
+    }
+
+    String put(String path, String json) throws Exception {
+        return send("PUT", path, json);
+    }
+
+    String get(String path) throws Exception {
+        return send("GET", path, null);
+    }
+
+    Result run(List<String> paths, int clients, Duration warmup, Duration duration) throws Exception {
+        runFor(paths, clients, warmup);
+        return runFor(paths, clients, duration);
+    }
+
+    private Result runFor(List<String> paths, int clients, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int size = 0;
+                    int errors = 0;
+                    while (System.nanoTime() < deadline) {
+                        String path = paths.get(ThreadLocalRandom.current().nextInt(paths.size()));
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request("GET", path, null),
+                                HttpResponse.BodyHandlers.discarding());
+                        long elapsed = System.nanoTime() - start;
+                        if (response.statusCode() >= 400) {
+                            errors++;
+                            continue;
+                        }
+                        if (size == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, size * 2);
+                        }
+                        latencies[size++] = elapsed;
+                    }
+                    long[] result = Arrays.copyOf(latencies, size + 1);
+                    result[size] = errors;
+                    return result;
+                }));
+            }
+        }
+        long[] all = new long[0];
+        long errors = 0;
+        for (Future<long[]> future : futures) {
+            long[] part = future.get();
+            errors += part[part.length - 1];
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + part.length - 1);
+            System.arraycopy(part, 0, all, offset, part.length - 1);
+        }
+        Arrays.sort(all);
+        return new Result(all, errors, duration);
+    }
+
+    private String send(String method, String path, String json) throws Exception {
+        HttpResponse<String> response = client.send(request(method, path, json), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(method + " " + path + " -> " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private HttpRequest request(String method, String path, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (json == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    record Result(long[] sortedLatencies, long errors, Duration duration) {
+
+        double throughput() {
+            return sortedLatencies.length / (duration.toMillis() / 1000.0);
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        String format(String label) {
+            return String.format("%-22s %10.0f req/s  p50=%8.2fms  p99=%8.2fms  p99.9=%8.2fms  errors=%d",
+                    label, throughput(), percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999), errors);
+        }
+    }
+}
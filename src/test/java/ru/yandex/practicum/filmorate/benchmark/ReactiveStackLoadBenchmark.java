@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the servlet stack (Spring MVC, JdbcTemplate) with the reactive profile (WebFlux, R2DBC) on the film
+ * read endpoints of the same H2 data: whole-catalog lists and point reads. Request coalescing and concurrency
+ * limits of the servlet stack are switched off, so both read the database on every request and shed no load.
+ * Run with {@code mvn test -Pbenchmark -Dtest=ReactiveStackLoadBenchmark}.
+ */
+@Tag("benchmark")
+class ReactiveStackLoadBenchmark {
+    private static final int FILMS = 500;
+    private static final int USERS = 100;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 256);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.durationSeconds", 30));
+
+    @Test
+    void compareStacks() throws Exception {
+        List<String> servlet = runStack("servlet", false);
+        List<String> reactive = runStack("reactive", true);
+
+        System.out.println("clients=" + CLIENTS + ", films=" + FILMS + ", duration=" + DURATION);
+        servlet.forEach(System.out::println);
+        reactive.forEach(System.out::println);
+    }
+
+    private List<String> runStack(String name, boolean reactive) throws Exception {
+        String database = "bench-" + name;
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FilmorateApplication.class);
+        if (reactive) {
+            builder.profiles("reactive");
+        }
+        // Passed as arguments, since the datasource URLs of the property files would override default properties
+        try (ConfigurableApplicationContext context = builder.run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=32",
+                "--filmorate.reactive.url=r2dbc:h2:mem:///" + database,
+                "--filmorate.storage.coalescing.enabled=false",
+                "--filmorate.limits.enabled=false",
+                "--server.tomcat.max-connections=20000",
+                "--logging.level.root=WARN",
+                "--logging.level.org.zalando.logbook=OFF")) {
+            seed(context.getBean(JdbcTemplate.class));
+            LoadDriver driver = new LoadDriver(((WebServerApplicationContext) context).getWebServer().getPort());
+            List<String> pointPaths = new ArrayList<>();
+            pointPaths.add("/films/popular?count=10");
+            for (int i = 1; i <= 20; i++) {
+                pointPaths.add("/films/" + i);
+            }
+            LoadDriver.Result list = driver.run(List.of("/films"), CLIENTS, WARMUP, DURATION);
+            LoadDriver.Result point = driver.run(pointPaths, CLIENTS, WARMUP, DURATION);
+            return List.of(list.format(name + " list"), point.format(name + " point"));
+        }
+    }
+
+    // Users are not served by the reactive profile, so both stacks are seeded directly
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{"user" + i + "@example.com", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1990, 1, 1))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", users);
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{"Film " + i, "Description " + i, Date.valueOf(LocalDate.of(2000, 1, 1)),
+                    90 + i % 60, 1 + i % 5});
+            genres.add(new Object[]{i, 1 + i % 6});
+            genres.add(new Object[]{i, 1 + (i + 1) % 6});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "VALUES (?, ?, ?, ?, ?)", films);
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genres);
+        List<Object[]> likes = new ArrayList<>();
+        for (int user = 1; user <= USERS; user++) {
+            for (int k = 0; k < 10; k++) {
+                likes.add(new Object[]{1 + (user * 7 + k * 13) % FILMS, user});
+            }
+        }
+        jdbcTemplate.batchUpdate("MERGE INTO film_likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)",
+                likes);
+    }
+}
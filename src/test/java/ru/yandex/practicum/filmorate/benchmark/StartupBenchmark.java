@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from JVM launch to the first successful response for the default, lazy, AOT and AOT+CDS launches of the
+ * same thin jar. Build it first with {@code mvn -Pfast-startup package -DskipTests}, then run
+ * {@code mvn test -Pbenchmark -Dtest=StartupBenchmark}.
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+    private static final int RUNS = Integer.getInteger("benchmark.runs", 5);
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final Path TARGET = Path.of("target");
+    private static final Path JAR = TARGET.resolve("filmorate-0.0.1-SNAPSHOT.jar");
+    private static final Path ARCHIVE = TARGET.resolve("filmorate-0.0.1-SNAPSHOT.jsa");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void compareStartupModes() throws Exception {
+        Assumptions.assumeTrue(Files.exists(ARCHIVE) && Files.isDirectory(TARGET.resolve("lib")),
+                "run mvn -Pfast-startup package -DskipTests first");
+
+        report("default", List.of(), List.of());
+        report("lazy", List.of(), List.of("--spring.profiles.active=lazy"));
+        report("aot", List.of("-Dspring.aot.enabled=true"), List.of());
+        report("aot+cds", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + ARCHIVE,
+                "-Xlog:cds=error"), List.of());
+    }
+
+    private void report(String name, List<String> jvmArgs, List<String> appArgs) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = timeToFirstRequest(jvmArgs, appArgs);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-8s time-to-first-request: median=%dms min=%dms max=%dms (%d runs)%n",
+                name, millis[RUNS / 2], millis[0], millis[RUNS - 1], RUNS);
+    }
+
+    private long timeToFirstRequest(List<String> jvmArgs, List<String> appArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(JAR.toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup");
+        command.add("--logging.level.root=WARN");
+        command.addAll(appArgs);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/genres")).build();
+            long deadline = start + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (ConnectException e) {
+                    if (!process.isAlive()) {
+                        throw new IllegalStateException("application exited with code " + process.exitValue());
+                    }
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("application did not answer within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
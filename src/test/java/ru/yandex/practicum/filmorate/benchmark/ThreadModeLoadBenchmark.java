@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares platform-thread and virtual-thread request handling on the same read endpoints.
+ * Run with {@code mvn test -Pbenchmark -Dtest=ThreadModeLoadBenchmark}.
+ */
+@Tag("benchmark")
+class ThreadModeLoadBenchmark {
+    private static final int FILMS = 200;
+    private static final int USERS = 100;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1000);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.durationSeconds", 30));
+
+    @Test
+    void compareThreadModes() throws Exception {
+        LoadDriver.Result platform = runMode("platform", false);
+        LoadDriver.Result virtual = runMode("virtual", true);
+
+        System.out.println("clients=" + CLIENTS + ", duration=" + DURATION);
+        System.out.println(platform.format("platform threads"));
+        System.out.println(virtual.format("virtual threads"));
+    }
+
+    private LoadDriver.Result runMode(String name, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + name + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.hikari.maximum-pool-size=32",
+                        "server.tomcat.max-connections=20000",
+                        "logging.level.root=WARN",
+                        "logging.level.org.zalando.logbook=OFF")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver(port);
+            seed(driver);
+            List<String> paths = new ArrayList<>();
+            paths.add("/films/popular?count=10");
+            for (int i = 1; i <= 20; i++) {
+                paths.add("/films/" + i);
+                paths.add("/users/" + i + "/friends");
+            }
+            return driver.run(paths, CLIENTS, WARMUP, DURATION);
+        }
+    }
+
+    static void seed(LoadDriver driver) throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            driver.post("/users", String.format(
+                    "{\"email\":\"user%d@example.com\",\"login\":\"user%d\",\"name\":\"User %d\",\"birthday\":\"1990-01-01\"}",
+                    i, i, i));
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            driver.post("/films", String.format(
+                    "{\"name\":\"Film %d\",\"description\":\"Description %d\",\"releaseDate\":\"2000-01-01\","
+                            + "\"duration\":%d,\"mpa\":{\"id\":%d},\"genres\":[{\"id\":%d},{\"id\":%d}]}",
+                    i, i, 90 + i % 60, 1 + i % 5, 1 + i % 6, 1 + (i + 1) % 6));
+        }
+        for (int user = 1; user <= USERS; user++) {
+            for (int k = 0; k < 10; k++) {
+                driver.put("/films/" + (1 + (user * 7 + k * 13) % FILMS) + "/like/" + user, "");
+                driver.put("/users/" + user + "/friends/" + (1 + (user + k * 3) % USERS), "");
+            }
+        }
+    }
+}
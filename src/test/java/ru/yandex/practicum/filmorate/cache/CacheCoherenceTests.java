@@ -0,0 +1,231 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.event.CachesResetEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one H2 file database, standing in for two instances. Polls are run by the test
+ * instead of the scheduler, so every assertion states what an instance serves after exactly one poll. The third
+ * instance keeps the default window in which popular films are served from the previous list.
+ */
+class CacheCoherenceTests {
+    private static final Path DIRECTORY = Path.of("target", "cache-coherence");
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static ConfigurableApplicationContext third;
+
+    @BeforeAll
+    static void startInstances() throws Exception {
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+        first = start("--filmorate.storage.coalescing.popular-max-stale=PT0S");
+        second = start("--filmorate.storage.coalescing.popular-max-stale=PT0S");
+        third = start();
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        third.close();
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void testLikeOnOneInstanceRefreshesPopularFilmsOnTheOther() {
+        User user = first.getBean(UserService.class).addUser(user("coherence-like"));
+        Film liked = first.getBean(FilmService.class).addFilm(film("Liked"));
+        FilmService secondFilms = second.getBean(FilmService.class);
+        poll(second);
+        assertThat(likes(secondFilms.getPopularFilms(100), liked)).isEmpty();
+        String tag = second.getBean(ResourceVersions.class).film(liked.getId()).etag();
+
+        first.getBean(FilmService.class).addLike(liked.getId(), user.getId());
+
+        assertThat(likes(secondFilms.getPopularFilms(100), liked)).isEmpty();
+        poll(second);
+        assertThat(likes(secondFilms.getPopularFilms(100), liked)).containsExactly(user.getId());
+        assertThat(second.getBean(ResourceVersions.class).film(liked.getId()).etag()).isNotEqualTo(tag);
+    }
+
+    @Test
+    void testGenreUpdateChangesGenreTagOnTheOther() {
+        GenreDbStorage genres = first.getBean(GenreDbStorage.class);
+        Genre genre = genres.getGenreById(1L).orElseThrow();
+        poll(second);
+        String tag = second.getBean(ResourceVersions.class).genres().etag();
+
+        genres.updateGenre(genre);
+
+        assertThat(second.getBean(ResourceVersions.class).genres().etag()).isEqualTo(tag);
+        poll(second);
+        assertThat(second.getBean(ResourceVersions.class).genres().etag()).isNotEqualTo(tag);
+    }
+
+    @Test
+    void testFriendshipReachesFriendGraphOfTheOther() {
+        UserService users = first.getBean(UserService.class);
+        User user = users.addUser(user("coherence-friend1"));
+        User friend = users.addUser(user("coherence-friend2"));
+        FriendGraph graph = second.getBean(FriendGraph.class);
+        assertThat(graph.shortestPath(user.getId(), friend.getId(), 3)).isEmpty();
+
+        users.addFriend(user.getId(), friend.getId());
+        poll(second);
+
+        assertThat(graph.shortestPath(user.getId(), friend.getId(), 3)).containsExactly(user.getId(), friend.getId());
+        assertThat(first.getBean(FriendGraph.class).shortestPath(user.getId(), friend.getId(), 3))
+                .containsExactly(user.getId(), friend.getId());
+    }
+
+    @Test
+    void testChangeCommittedAfterLaterOneIsStillReplayed() throws Exception {
+        Film film = first.getBean(FilmService.class).addFilm(film("Late"));
+        User user = first.getBean(UserService.class).addUser(user("coherence-late"));
+        poll(second);
+        ResourceVersions versions = second.getBean(ResourceVersions.class);
+        String tag = versions.film(film.getId()).etag();
+        JdbcTemplate jdbcTemplate = first.getBean(JdbcTemplate.class);
+        TransactionTemplate transaction = new TransactionTemplate(first.getBean(PlatformTransactionManager.class));
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        CompletableFuture<Void> late = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO cache_changes (node_id, entity, type, entity_id) " +
+                    "VALUES ('elsewhere', 'FILM', 'UPDATED', ?)", film.getId());
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(inserted.await(5, TimeUnit.SECONDS)).isTrue();
+        first.getBean(FilmService.class).addLike(film.getId(), user.getId());
+        poll(second);
+        String afterLike = versions.film(film.getId()).etag();
+        commit.countDown();
+        late.get(5, TimeUnit.SECONDS);
+        poll(second);
+
+        assertThat(afterLike).isNotEqualTo(tag);
+        assertThat(versions.film(film.getId()).etag()).isNotEqualTo(afterLike);
+    }
+
+    @Test
+    void testReplayedLikeRefreshesPopularFilmsKeptWithinStaleWindow() throws InterruptedException {
+        User user = first.getBean(UserService.class).addUser(user("coherence-stale"));
+        Film liked = first.getBean(FilmService.class).addFilm(film("Stale"));
+        FilmService thirdFilms = third.getBean(FilmService.class);
+        poll(third);
+        assertThat(likes(thirdFilms.getPopularFilms(100), liked)).isEmpty();
+
+        first.getBean(FilmService.class).addLike(liked.getId(), user.getId());
+
+        assertThat(likes(thirdFilms.getPopularFilms(100), liked)).isEmpty();
+        poll(third);
+        await(() -> likes(thirdFilms.getPopularFilms(100), liked).contains(user.getId()));
+    }
+
+    @Test
+    void testFailedPollsRefuseTrafficUntilCachesAreReset() throws InterruptedException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:coherence-readiness;" +
+                "DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE cache_changes (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "node_id VARCHAR(36), entity VARCHAR(10), type VARCHAR(20), entity_id BIGINT, related_id BIGINT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        List<Object> events = new ArrayList<>();
+        try (CacheCoherence coherence = new CacheCoherence(jdbcTemplate, events::add, Duration.ofHours(1), 100,
+                Duration.ofMinutes(1), Duration.ofMillis(100), Duration.ofMinutes(10))) {
+            coherence.afterPropertiesSet();
+            assertThat(coherence.isCurrent()).isTrue();
+            jdbcTemplate.execute("ALTER TABLE cache_changes RENAME TO cache_changes_moved");
+            Thread.sleep(150);
+
+            assertThat(coherence.isCurrent()).isFalse();
+            coherence.poll();
+            assertThat(events).extracting(CacheCoherenceTests::describe)
+                    .containsExactly(ReadinessState.REFUSING_TRAFFIC);
+
+            jdbcTemplate.execute("ALTER TABLE cache_changes_moved RENAME TO cache_changes");
+            coherence.poll();
+            assertThat(events).extracting(CacheCoherenceTests::describe).containsExactly(
+                    ReadinessState.REFUSING_TRAFFIC, CachesResetEvent.class, ReadinessState.ACCEPTING_TRAFFIC);
+            assertThat(coherence.isCurrent()).isTrue();
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+
+    private static Object describe(Object event) {
+        return event instanceof AvailabilityChangeEvent<?> availability ? availability.getState() : event.getClass();
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:./" + DIRECTORY.resolve("filmorate"),
+                "--filmorate.cache.coherence.enabled=true",
+                "--filmorate.cache.coherence.poll-interval=PT1H"));
+        all.addAll(List.of(args));
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all.toArray(String[]::new));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static void poll(ConfigurableApplicationContext instance) {
+        instance.getBean(CacheCoherence.class).poll();
+    }
+
+    private static Set<Long> likes(List<Film> films, Film film) {
+        return films.stream().filter(f -> f.getId().equals(film.getId())).findFirst().orElseThrow().getLikes();
+    }
+
+    private static User user(String login) {
+        return new User(null, null, login + "@example.com", login, login, LocalDate.of(1990, 1, 1));
+    }
+
+    private static Film film(String name) {
+        return new Film(null, name, "Description", LocalDate.of(2000, 1, 1), 100, null, new Mpa(1L, "G"), null);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceVersionsTests {
+    private final ResourceVersions versions = new ResourceVersions();
+
+    @Test
+    void testLookupsOfUnchangedFilmsAllocateNothing() {
+        String tag = versions.film(1L).etag();
+        for (long id = 0; id < 1000; id++) {
+            versions.film(id);
+        }
+
+        assertThat(versions.trackedFilms()).isZero();
+        assertThat(versions.film(1L).etag()).isEqualTo(tag);
+    }
+
+    @Test
+    void testDeletedFilmNeverReturnsToEarlierTag() {
+        String unchanged = versions.film(1L).etag();
+        versions.onFilmChange(FilmChangeEvent.of(FilmChangeEvent.Type.UPDATED, 1L));
+        String updated = versions.film(1L).etag();
+
+        versions.onFilmChange(FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, 1L));
+
+        assertThat(updated).isNotEqualTo(unchanged);
+        assertThat(versions.trackedFilms()).isZero();
+        assertThat(versions.film(1L).etag()).isNotIn(unchanged, updated);
+    }
+}
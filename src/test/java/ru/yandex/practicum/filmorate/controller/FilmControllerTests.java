@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.cache.ResourceVersions;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:film-controller;DB_CLOSE_DELAY=-1",
+        "filmorate.warmup.enabled=false"
+})
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmControllerTests {
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final ResourceVersions resourceVersions;
+
+    @Test
+    void testMatchingTagOfExistingFilmIsNotModified() throws Exception {
+        Film film = filmService.addFilm(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 100, null,
+                new Mpa(1L, null), null));
+
+        mockMvc.perform(get("/films/{id}", film.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, resourceVersions.film(film.getId()).etag()))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testMatchingTagOfMissingOrDeletedFilmIsNotFound() throws Exception {
+        mockMvc.perform(get("/films/{id}", 9999)
+                        .header(HttpHeaders.IF_NONE_MATCH, resourceVersions.film(9999L).etag()))
+                .andExpect(status().isNotFound());
+
+        Film film = filmService.addFilm(new Film(null, "Deleted", "Description", LocalDate.of(2000, 1, 1), 100, null,
+                new Mpa(1L, null), null));
+        filmService.deleteFilm(film.getId());
+        mockMvc.perform(get("/films/{id}", film.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, resourceVersions.film(film.getId()).etag()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testEmptyIdsAreSkipped() throws Exception {
+        Film first = filmService.addFilm(new Film(null, "First", "Description", LocalDate.of(2000, 1, 1), 100, null,
+                new Mpa(1L, null), null));
+        Film second = filmService.addFilm(new Film(null, "Second", "Description", LocalDate.of(2000, 1, 1), 100, null,
+                new Mpa(1L, null), null));
+
+        mockMvc.perform(get("/films").param("ids", first.getId() + ",," + second.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(
+                        first.getId().intValue(), second.getId().intValue())));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.eventlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLogTests {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendedEventsAreReadBackAcrossSegments() {
+        try (EventLog eventLog = EventLog.open(directory, 4 * EventLog.RECORD_SIZE, true)) {
+            for (long i = 1; i <= 10; i++) {
+                assertThat(eventLog.append(LogEvent.Type.LIKE_ADDED, i, i + 100)).isEqualTo(i);
+            }
+
+            List<LogEvent> events = eventLog.read(3, 5);
+
+            assertThat(events).extracting(LogEvent::sequence).containsExactly(3L, 4L, 5L, 6L, 7L);
+            assertThat(events.get(0)).isEqualTo(new LogEvent(3, LogEvent.Type.LIKE_ADDED, 3, 103));
+        }
+    }
+
+    @Test
+    void testReopenContinuesAfterLastEvent() {
+        try (EventLog eventLog = EventLog.open(directory, 1024, true)) {
+            eventLog.append(LogEvent.Type.FRIEND_ADDED, 1, 2);
+            eventLog.append(LogEvent.Type.FRIEND_REMOVED, 1, 2);
+        }
+
+        try (EventLog eventLog = EventLog.open(directory, 1024, true)) {
+            assertThat(eventLog.lastSequence()).isEqualTo(2);
+            assertThat(eventLog.append(LogEvent.Type.LIKE_REMOVED, 5, 6)).isEqualTo(3);
+            assertThat(eventLog.read(1, 10)).extracting(LogEvent::type).containsExactly(
+                    LogEvent.Type.FRIEND_ADDED, LogEvent.Type.FRIEND_REMOVED, LogEvent.Type.LIKE_REMOVED);
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsGetDistinctSequences() throws Exception {
+        try (EventLog eventLog = EventLog.open(directory, 64 * 1024, true)) {
+            List<Future<Long>> sequences = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+                for (int i = 0; i < 500; i++) {
+                    long userId = i;
+                    sequences.add(executor.submit(() -> eventLog.append(LogEvent.Type.LIKE_ADDED, 1, userId)));
+                }
+            }
+
+            List<Long> values = new ArrayList<>();
+            for (Future<Long> sequence : sequences) {
+                values.add(sequence.get());
+            }
+            assertThat(values).doesNotHaveDuplicates().hasSize(500);
+            assertThat(eventLog.lastSequence()).isEqualTo(500);
+        }
+    }
+
+    @Test
+    void testProjectionResumesFromCheckpoint() throws Exception {
+        List<Long> applied = new CopyOnWriteArrayList<>();
+        try (EventLog eventLog = EventLog.open(directory, 1024, true)) {
+            eventLog.append(LogEvent.Type.LIKE_ADDED, 1, 1);
+            eventLog.append(LogEvent.Type.LIKE_ADDED, 1, 2);
+            EventLogProjection projection = eventLog.project("test", event -> applied.add(event.sequence()));
+            awaitApplied(projection, 2);
+        }
+
+        try (EventLog eventLog = EventLog.open(directory, 1024, true)) {
+            eventLog.append(LogEvent.Type.LIKE_ADDED, 1, 3);
+            EventLogProjection projection = eventLog.project("test", event -> applied.add(event.sequence()));
+            awaitApplied(projection, 3);
+        }
+
+        assertThat(applied).containsExactly(1L, 2L, 3L);
+    }
+
+    private static void awaitApplied(EventLogProjection projection, long sequence) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (projection.appliedSequence() < sequence && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(projection.appliedSequence()).isEqualTo(sequence);
+    }
+}
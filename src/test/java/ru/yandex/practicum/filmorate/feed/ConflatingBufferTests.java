@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.feed;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConflatingBufferTests {
+
+    @Test
+    void testLikesConflatePerFilm() {
+        ConflatingBuffer buffer = new ConflatingBuffer(10);
+        buffer.offer(new FeedEvent.Likes(1, 1, 1));
+        buffer.offer(new FeedEvent.Likes(2, 5, 1));
+        buffer.offer(new FeedEvent.Likes(1, 2, 1));
+        buffer.offer(new FeedEvent.Likes(1, 1, -1));
+
+        assertThat(buffer.drain()).containsExactly(new FeedEvent.Likes(1, 1, 1), new FeedEvent.Likes(2, 5, 1));
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.drain()).isEmpty();
+    }
+
+    @Test
+    void testUpdateKeepsLatestVersionAndDeleteReplacesPending() {
+        ConflatingBuffer buffer = new ConflatingBuffer(10);
+        Film first = film(1, "Первая");
+        Film second = film(1, "Вторая");
+        buffer.offer(new FeedEvent.Likes(1, 3, 1));
+        buffer.offer(new FeedEvent.Updated(first));
+        buffer.offer(new FeedEvent.Updated(second));
+        buffer.offer(new FeedEvent.Updated(film(2, "Другая")));
+        buffer.offer(new FeedEvent.Deleted(2));
+        buffer.offer(new FeedEvent.Likes(2, 1, 1));
+
+        assertThat(buffer.drain()).containsExactly(new FeedEvent.Updated(second), new FeedEvent.Likes(1, 3, 1),
+                new FeedEvent.Deleted(2));
+    }
+
+    @Test
+    void testOverflowIsReplacedByReset() {
+        ConflatingBuffer buffer = new ConflatingBuffer(2);
+        buffer.offer(new FeedEvent.Likes(1, 1, 1));
+        buffer.offer(new FeedEvent.Likes(2, 1, 1));
+        buffer.offer(new FeedEvent.Likes(1, 2, 1));
+        assertThat(buffer.isEmpty()).isFalse();
+        buffer.offer(new FeedEvent.Likes(3, 1, 1));
+        buffer.offer(new FeedEvent.Likes(4, 1, 1));
+
+        assertThat(buffer.drain()).containsExactly(new FeedEvent.Reset());
+        buffer.offer(new FeedEvent.Likes(5, 1, 1));
+        assertThat(buffer.drain()).containsExactly(new FeedEvent.Likes(5, 1, 1));
+    }
+
+    private static Film film(long id, String name) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        return film;
+    }
+}
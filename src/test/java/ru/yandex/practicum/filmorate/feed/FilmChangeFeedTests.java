@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.feed;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:film-change-feed;DB_CLOSE_DELAY=-1",
+        "filmorate.warmup.enabled=false"
+})
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmChangeFeedTests {
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmChangeFeed filmChangeFeed;
+
+    @Test
+    void testUpdateAndLikeReachFilmSubscriber() throws Exception {
+        Film film = filmService.addFilm(new Film(null, "Feed", "Description", LocalDate.of(2000, 1, 1), 100, null,
+                new Mpa(1L, null), null));
+        User user = userService.addUser(new User(null, null, "feed@example.com", "feed", "Feed",
+                LocalDate.of(1990, 1, 1)));
+        MockHttpServletResponse response = mockMvc.perform(get("/films/{id}/stream", film.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        await(() -> content(response).contains("\"name\":\"Feed\""));
+
+        film.setName("Feed renamed");
+        filmService.updateFilm(film);
+        filmService.addLike(film.getId(), user.getId());
+
+        await(() -> content(response).contains("\"name\":\"Feed renamed\""));
+        await(() -> content(response).contains("event:likes\ndata:{\"filmId\":" + film.getId()
+                + ",\"likes\":1,\"delta\":1}"));
+    }
+
+    @Test
+    void testHeartbeatReachesIdleSubscriber() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/films/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        filmChangeFeed.heartbeat();
+
+        await(() -> content(response).contains(":heartbeat"));
+    }
+
+    @Test
+    void testDeadSubscriberIsRemoved() throws InterruptedException {
+        try (FilmChangeFeed feed = new FilmChangeFeed(10, Duration.ofMinutes(1))) {
+            SseEmitter live = feed.subscribe();
+            SseEmitter dead = feed.subscribe();
+            dead.complete();
+            assertThat(feed.subscribers()).isEqualTo(2);
+
+            feed.heartbeat();
+
+            await(() -> feed.subscribers() == 1);
+            assertThat(live).isNotSameAs(dead);
+        }
+    }
+
+    private static String content(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTests {
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void testRejectsWhenLimitReachedAndQueueFull() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, Duration.ofMillis(100), 0.5, 0, Duration.ZERO);
+
+        assertThat(limiter.acquire()).isTrue();
+        assertThat(limiter.acquire()).isFalse();
+
+        limiter.release(FAST);
+        assertThat(limiter.acquire()).isTrue();
+    }
+
+    @Test
+    void testQueuedRequestGetsReleasedPermit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, Duration.ofMillis(100), 0.5, 1, Duration.ofSeconds(5));
+        assertThat(limiter.acquire()).isTrue();
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        limiter.release(FAST);
+
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void testLimitGrowsWhenFastAndShrinksWhenSlow() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 8, Duration.ofMillis(100), 0.5, 0, Duration.ZERO);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.acquire()).isTrue();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(FAST);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(4);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+            limiter.release(SLOW);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTests {
+
+    @Test
+    void testEndpointClasses() {
+        assertThat(EndpointClass.of("GET", "/films")).isEqualTo(EndpointClass.LIST);
+        assertThat(EndpointClass.of("GET", "/users")).isEqualTo(EndpointClass.LIST);
+        assertThat(EndpointClass.of("GET", "/films/popular")).isEqualTo(EndpointClass.POPULAR);
+        assertThat(EndpointClass.of("GET", "/films/1")).isEqualTo(EndpointClass.READ);
+        assertThat(EndpointClass.of("GET", "/users/1/friends")).isEqualTo(EndpointClass.READ);
+        assertThat(EndpointClass.of("PUT", "/films/1/like/2")).isEqualTo(EndpointClass.WRITE);
+        assertThat(EndpointClass.of("POST", "/users")).isEqualTo(EndpointClass.WRITE);
+        assertThat(EndpointClass.of("GET", "/actuator/health")).isNull();
+        assertThat(EndpointClass.of("GET", "/films", "ids=1,2")).isEqualTo(EndpointClass.READ);
+        assertThat(EndpointClass.of("GET", "/users", "sort=id&ids=")).isEqualTo(EndpointClass.READ);
+        assertThat(EndpointClass.of("GET", "/users", "idsx=1")).isEqualTo(EndpointClass.LIST);
+    }
+
+    @Test
+    void testRequestsByIdsTakeReadPermits() throws Exception {
+        Map<EndpointClass, AdaptiveLimiter> limiters = limiters();
+        ConcurrencyLimitFilter filter = filter(limiters);
+        MockHttpServletRequest request = request("GET", "/films");
+        request.setQueryString("ids=1,2");
+        AtomicInteger readInFlight = new AtomicInteger();
+        AtomicInteger listInFlight = new AtomicInteger(-1);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            readInFlight.set(limiters.get(EndpointClass.READ).getInFlight());
+            listInFlight.set(limiters.get(EndpointClass.LIST).getInFlight());
+        });
+
+        assertThat(readInFlight).hasValue(1);
+        assertThat(listInFlight).hasValue(0);
+    }
+
+    @Test
+    void testRejectsWith503WhenLimitReached() throws Exception {
+        Map<EndpointClass, AdaptiveLimiter> limiters = limiters();
+        AdaptiveLimiter popular = limiters.get(EndpointClass.POPULAR);
+        ConcurrencyLimitFilter filter = filter(limiters);
+        assertThat(popular.acquire()).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        filter.doFilter(request("GET", "/films/popular"), rejected, rejectedChain);
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/films"), admitted, new MockFilterChain());
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejected.getContentAsString()).contains("error");
+        assertThat(rejectedChain.getRequest()).isNull();
+        assertThat(admitted.getStatus()).isEqualTo(200);
+        assertThat(limiters.get(EndpointClass.LIST).getInFlight()).isZero();
+    }
+
+    @Test
+    void testAsyncRequestReleasesPermitAfterFirstDispatch() throws Exception {
+        Map<EndpointClass, AdaptiveLimiter> limiters = limiters();
+        AdaptiveLimiter read = limiters.get(EndpointClass.READ);
+        ConcurrencyLimitFilter filter = filter(limiters);
+        MockHttpServletRequest request = request("GET", "/films/stream");
+        request.setAsyncSupported(true);
+        AtomicInteger inFlightDuringStart = new AtomicInteger();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            inFlightDuringStart.set(read.getInFlight());
+            req.startAsync();
+        });
+        assertThat(inFlightDuringStart).hasValue(1);
+        assertThat(request.isAsyncStarted()).isTrue();
+        assertThat(read.getInFlight()).isZero();
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        AtomicInteger inFlightDuringDispatch = new AtomicInteger(-1);
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> inFlightDuringDispatch.set(read.getInFlight()));
+        assertThat(inFlightDuringDispatch).hasValue(0);
+        assertThat(read.getInFlight()).isZero();
+        assertThat(read.acquire()).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+
+    private static ConcurrencyLimitFilter filter(Map<EndpointClass, AdaptiveLimiter> limiters) {
+        return new ConcurrencyLimitFilter(limiters, Duration.ofSeconds(2), new ObjectMapper());
+    }
+
+    private static Map<EndpointClass, AdaptiveLimiter> limiters() {
+        Map<EndpointClass, AdaptiveLimiter> limiters = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limiters.put(endpointClass, new AdaptiveLimiter(1, 1, 1, Duration.ofSeconds(1), 0.5, 0, Duration.ZERO));
+        }
+        return limiters;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SketchTests {
+
+    @Test
+    void testHyperLogLogEstimateAndMerge() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (long id = 1; id <= 100_000; id++) {
+            first.add(id);
+            first.add(id);
+        }
+        for (long id = 50_001; id <= 150_000; id++) {
+            second.add(id);
+        }
+
+        assertThat(first.estimate()).isCloseTo(100_000, within(5_000L));
+        first.merge(second);
+        assertThat(first.estimate()).isCloseTo(150_000, within(7_500L));
+        assertThat(new HyperLogLog(12).estimate()).isZero();
+    }
+
+    @Test
+    void testCountMinNeverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (long film = 1; film <= 5_000; film++) {
+            sketch.add(film, film % 10 + 1);
+        }
+        CountMinSketch other = new CountMinSketch(1024, 4);
+        other.add(7, 100);
+        sketch.merge(other);
+
+        for (long film = 1; film <= 5_000; film++) {
+            long exact = film % 10 + 1 + (film == 7 ? 100 : 0);
+            assertThat(sketch.estimate(film)).isGreaterThanOrEqualTo(exact)
+                    .isLessThanOrEqualTo(exact + Math.round(Math.E * sketch.total() / 1024));
+        }
+    }
+
+    @Test
+    void testSpaceSavingKeepsHeavyHittersAcrossMerge() {
+        SpaceSaving first = new SpaceSaving(10);
+        SpaceSaving second = new SpaceSaving(10);
+        for (long i = 0; i < 10_000; i++) {
+            first.add(i % 3 == 0 ? 1 : 1_000 + i, 1);
+            second.add(i % 4 == 0 ? 2 : 100_000 + i, 1);
+        }
+        first.merge(second);
+
+        List<SpaceSaving.Entry> top = first.top(2);
+        assertThat(top).extracting(SpaceSaving.Entry::key).containsExactly(1L, 2L);
+        assertThat(top.get(0).count() - top.get(0).error()).isLessThanOrEqualTo(3_334);
+        assertThat(top.get(0).count()).isGreaterThanOrEqualTo(3_334);
+    }
+
+    @Test
+    void testActivityStatsWindowDropsOldBuckets() {
+        MutableClock clock = new MutableClock();
+        ActivityStats stats = new ActivityStats(Duration.ofMinutes(10), Duration.ofHours(1), 10, 256, 4, 10, clock);
+        stats.recordLike(1, 100);
+        stats.recordLike(1, 101);
+        stats.recordFriendship(100, 101);
+        clock.advance(Duration.ofMinutes(30));
+        stats.recordLike(2, 100);
+
+        assertThat(stats.summary(Duration.ofHours(1)))
+                .returns(3L, ActivityStats.Summary::likes)
+                .returns(2L, ActivityStats.Summary::likingUsers)
+                .returns(1L, ActivityStats.Summary::friendships);
+        assertThat(stats.filmLikes(1, Duration.ofMinutes(10))).isZero();
+        assertThat(stats.topFilms(1, Duration.ofHours(1))).extracting(SpaceSaving.Entry::key).containsExactly(1L);
+
+        clock.advance(Duration.ofMinutes(40));
+        assertThat(stats.summary(Duration.ofHours(1)).likes()).isEqualTo(1);
+        clock.advance(Duration.ofHours(1));
+        stats.recordLike(3, 100);
+        assertThat(stats.summary(Duration.ofHours(1)).likes()).isEqualTo(1);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.CoalescingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingFilmStorageTests {
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final List<Integer> refreshed = new ArrayList<>();
+    private InMemoryFilmStorage delegate;
+    private CoalescingFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new InMemoryFilmStorage(event -> { });
+        storage = new CoalescingFilmStorage(delegate, Duration.ofMinutes(1), refreshes::add, refreshed::add);
+        for (int i = 1; i <= 3; i++) {
+            storage.addFilm(new Film(null, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 100,
+                    null, new Mpa(1L, "G"), null));
+        }
+    }
+
+    @Test
+    void testPopularListIsKeptUntilInvalidated() {
+        List<Film> first = storage.getPopularFilms(2);
+        delegate.addLike(3L, 1L);
+
+        assertThat(storage.getPopularFilms(2)).isEqualTo(first);
+        assertThat(refreshes).isEmpty();
+    }
+
+    @Test
+    void testCallersGetTheirOwnCopies() {
+        List<Film> first = storage.getPopularFilms(2);
+        first.get(0).addLike(42L);
+        first.get(0).setName("Changed");
+        first.clear();
+
+        List<Film> second = storage.getPopularFilms(2);
+
+        assertThat(second).hasSize(2);
+        assertThat(second.get(0).getName()).isNotEqualTo("Changed");
+        assertThat(second.get(0).getLikes()).doesNotContain(42L);
+        assertThat(storage.getFilmById(1L).orElseThrow()).isNotSameAs(storage.getFilmById(1L).orElseThrow());
+    }
+
+    @Test
+    void testStaleListIsServedWhileOneRefreshRuns() {
+        List<Film> stale = storage.getPopularFilms(2);
+        delegate.addLike(3L, 1L);
+        storage.invalidatePopular();
+
+        assertThat(storage.getPopularFilms(2)).isEqualTo(stale);
+        assertThat(storage.getPopularFilms(2)).isEqualTo(stale);
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.get(0).run();
+
+        assertThat(refreshed).containsExactly(2);
+        assertThat(storage.getPopularFilms(2).get(0).getId()).isEqualTo(3L);
+    }
+}
@@ -139,6 +139,20 @@ class FilmDbStorageTests {
                 .hasValueSatisfying(f -> assertThat(f.getId()).isEqualTo(savedFilm.getId()));
     }
 
+    @Test
+    void testGetFilmsByIdsKeepsRequestOrder() {
+        Film first = filmStorage.addFilm(new Film(null, "Film1", "Desc1", LocalDate.of(2020, 1, 1), 120, null,
+                new Mpa(1L, "G"), List.of(new Genre(1L, "Comedy"))));
+        Film second = filmStorage.addFilm(new Film(null, "Film2", "Desc2", LocalDate.of(2021, 1, 1), 90, null,
+                new Mpa(2L, "PG"), new ArrayList<>()));
+
+        List<Film> films = filmStorage.getFilmsByIds(List.of(second.getId(), 999L, first.getId(), second.getId()));
+
+        assertThat(films).extracting(Film::getId).containsExactly(second.getId(), first.getId());
+        assertThat(films.get(1).getGenres()).extracting(Genre::getId).containsExactly(1L);
+        assertThat(filmStorage.getFilmsByIds(List.of())).isEmpty();
+    }
+
     @Test
     void testGetAllFilms() {
         Film film1 = new Film(null, "Film1", "Desc1", LocalDate.of(2020, 1, 1), 120, null,
@@ -153,6 +167,27 @@ class FilmDbStorageTests {
         assertThat(films).hasSize(2);
     }
 
+    @Test
+    void testGetAllFilmsLoadsGenresAndLikes() {
+        Film film1 = new Film(null, "Film1", "Desc1", LocalDate.of(2020, 1, 1), 120, null,
+                new Mpa(1L, "G"), Arrays.asList(new Genre(2L, "Drama"), new Genre(1L, "Comedy")));
+        Film film2 = new Film(null, "Film2", "Desc2", LocalDate.of(2021, 1, 1), 90, null,
+                new Mpa(1L, "G"), new ArrayList<>());
+        Long id1 = filmStorage.addFilm(film1).getId();
+        Long id2 = filmStorage.addFilm(film2).getId();
+        filmStorage.addLike(id2, 1L);
+
+        List<Film> films = filmStorage.getAllFilms();
+
+        assertThat(films).hasSize(2);
+        Film loaded1 = films.stream().filter(f -> f.getId().equals(id1)).findFirst().orElseThrow();
+        Film loaded2 = films.stream().filter(f -> f.getId().equals(id2)).findFirst().orElseThrow();
+        assertThat(loaded1.getGenres()).extracting(Genre::getId).containsExactly(1L, 2L);
+        assertThat(loaded1.getLikes()).isEmpty();
+        assertThat(loaded2.getGenres()).isEmpty();
+        assertThat(loaded2.getLikes()).containsExactly(1L);
+    }
+
     @Test
     void testAddLikeAndGetLikes() {
         Film film = new Film(null, "Test Film", "Description", LocalDate.of(2020, 1, 1), 120, null,
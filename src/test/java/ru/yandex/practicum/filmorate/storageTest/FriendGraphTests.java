@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.event.UserChangeEvent;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest(properties = "filmorate.graph.max-visits=50")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ComponentScan("ru.yandex.practicum.filmorate.storage")
+class FriendGraphTests {
+    private final UserDbStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM user_friends");
+        for (int i = 0; i < 6; i++) {
+            ids.add(userStorage.addUser(new User(null, null, "user" + i + "@example.com", "user" + i, "User" + i,
+                    LocalDate.of(1990, 1, 1))).getId());
+        }
+        // 0 -> 1 -> 2 -> 3 and a shortcut 0 -> 4 -> 3; 5 only follows 0
+        friend(0, 1);
+        friend(1, 2);
+        friend(2, 3);
+        friend(0, 4);
+        friend(4, 3);
+        friend(5, 0);
+    }
+
+    @Test
+    void findsShortestChainAndFollowsChanges() {
+        assertThat(friendGraph.shortestPath(user(0), user(3), 6)).containsExactly(user(0), user(4), user(3));
+        assertThat(friendGraph.shortestPath(user(3), user(0), 6)).isEmpty();
+        assertThat(friendGraph.shortestPath(user(5), user(3), 2)).isEmpty();
+
+        userStorage.removeFriend(user(4), user(3));
+        assertThat(friendGraph.shortestPath(user(0), user(3), 6))
+                .containsExactly(user(0), user(1), user(2), user(3));
+
+        userStorage.deleteUser(user(2));
+        assertThat(friendGraph.shortestPath(user(0), user(3), 6)).isEmpty();
+    }
+
+    @Test
+    void appliesChangesPublishedBeforeFirstLoad() {
+        FriendGraph graph = new FriendGraph(jdbcTemplate, 50);
+        // Not committed yet when the graph is loaded: 0 -> 4 still in the table, 3 -> 5 not yet
+        graph.onUserChange(new UserChangeEvent(UserChangeEvent.Type.FRIEND_REMOVED, user(0), user(4)));
+        graph.onUserChange(new UserChangeEvent(UserChangeEvent.Type.FRIEND_ADDED, user(3), user(5)));
+
+        assertThat(graph.shortestPath(user(0), user(3), 6)).containsExactly(user(0), user(1), user(2), user(3));
+        assertThat(graph.shortestPath(user(3), user(5), 1)).containsExactly(user(3), user(5));
+    }
+
+    @Test
+    void countsUsersWithinHops() {
+        assertThat(friendGraph.reach(user(0), 1)).isEqualTo(new FriendGraph.Reach(1, 2, false));
+        assertThat(friendGraph.reach(user(5), 3)).isEqualTo(new FriendGraph.Reach(3, 5, false));
+    }
+
+    @Test
+    void stopsAtVisitBudget() {
+        long hub = user(5);
+        for (int i = 0; i < 60; i++) {
+            long leaf = userStorage.addUser(new User(null, null, "leaf" + i + "@example.com", "leaf" + i, null,
+                    LocalDate.of(1990, 1, 1))).getId();
+            userStorage.addFriend(hub, leaf);
+        }
+
+        assertThat(friendGraph.reach(hub, 1).truncated()).isTrue();
+        assertThatThrownBy(() -> friendGraph.shortestPath(hub, user(3), 6))
+                .isInstanceOf(FriendGraph.BudgetExceededException.class);
+    }
+
+    private void friend(int from, int to) {
+        userStorage.addFriend(user(from), user(to));
+    }
+
+    private long user(int index) {
+        return ids.get(index);
+    }
+}
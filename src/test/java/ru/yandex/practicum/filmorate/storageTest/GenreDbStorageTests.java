@@ -59,6 +59,14 @@ class GenreDbStorageTests {
                 .extracting(Genre::getId)
                 .containsExactly(1L);
 
+        genreIds = Arrays.asList(3L, 1L, 5L);
+        genres = genreStorage.getGenresByIds(genreIds);
+
+        assertThat(genres)
+                .hasSize(3)
+                .extracting(Genre::getId)
+                .containsExactlyInAnyOrder(1L, 3L, 5L);
+
         genres = genreStorage.getGenresByIds(Collections.emptyList());
 
         assertThat(genres)
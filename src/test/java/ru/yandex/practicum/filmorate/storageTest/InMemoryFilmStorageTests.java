@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryFilmStorageTests {
+    private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage(events::add);
+
+    @Test
+    void testChangesArePublished() {
+        Film film = storage.addFilm(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+                null, new Mpa(1L, "G"), null));
+        long id = film.getId();
+        film.setName("Renamed");
+        storage.updateFilm(film);
+        storage.addLike(id, 1L);
+        storage.addLike(id, 1L);
+        storage.removeLike(id, 1L);
+        storage.removeLike(id, 1L);
+        storage.deleteFilm(id);
+
+        assertThat(events).containsExactly(
+                FilmChangeEvent.of(FilmChangeEvent.Type.CREATED, id),
+                FilmChangeEvent.of(FilmChangeEvent.Type.UPDATED, id),
+                new FilmChangeEvent(FilmChangeEvent.Type.LIKE_ADDED, id, 1L),
+                new FilmChangeEvent(FilmChangeEvent.Type.LIKE_REMOVED, id, 1L),
+                FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, id));
+    }
+
+    @Test
+    void testConcurrentLikesAreAllKeptAcrossUpdates() throws Exception {
+        Film film = storage.addFilm(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+                null, new Mpa(1L, "G"), null));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (long userId = 1; userId <= 200; userId++) {
+            long liker = userId;
+            pool.execute(() -> storage.addLike(film.getId(), liker));
+            if (userId % 50 == 0) {
+                pool.execute(() -> storage.updateFilm(new Film(film.getId(), "Renamed", "Description",
+                        LocalDate.of(2000, 1, 1), 100, null, new Mpa(1L, "G"), null)));
+            }
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Film stored = storage.getFilmById(film.getId()).orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Renamed");
+        assertThat(stored.getLikes()).hasSize(200);
+        assertThat(events).filteredOn(event -> event instanceof FilmChangeEvent change
+                && change.getType() == FilmChangeEvent.Type.LIKE_ADDED).hasSize(200);
+    }
+}
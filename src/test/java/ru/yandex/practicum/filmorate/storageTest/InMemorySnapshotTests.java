@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemorySnapshotTests {
+    @TempDir
+    Path dir;
+
+    @Test
+    void filmsSurviveRoundTrip() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(event -> { });
+        Film film = storage.addFilm(new Film(null, "Film", null, LocalDate.of(2000, 1, 1), 90, new HashSet<>(),
+                new Mpa(1L, "G"), new ArrayList<>(List.of(new Genre(2L, "Драма")))));
+        storage.addFilm(new Film(null, "Other", "Описание", LocalDate.of(1999, 5, 5), 100, new HashSet<>(),
+                new Mpa(3L, "PG-13"), new ArrayList<>()));
+        storage.addLike(film.getId(), 7L);
+        storage.saveSnapshot(dir.resolve("films.snapshot"));
+
+        InMemoryFilmStorage restored = new InMemoryFilmStorage(event -> { });
+        assertThat(restored.loadSnapshot(dir.resolve("films.snapshot"))).isTrue();
+
+        assertThat(restored.getAllFilms()).containsExactlyInAnyOrderElementsOf(storage.getAllFilms());
+        assertThat(restored.getFilmById(film.getId()).orElseThrow().getLikes()).containsExactly(7L);
+        assertThat(restored.addFilm(new Film(null, "Next", null, LocalDate.of(2001, 1, 1), 80, new HashSet<>(),
+                new Mpa(1L, "G"), new ArrayList<>())).getId()).isEqualTo(3L);
+    }
+
+    @Test
+    void usersSurviveRoundTrip() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        User first = storage.addUser(new User(null, new HashSet<>(), "a@mail.ru", "a", "A", LocalDate.of(1990, 1, 1)));
+        User second = storage.addUser(new User(null, new HashSet<>(), "b@mail.ru", "b", null, LocalDate.of(1991, 1, 1)));
+        storage.addFriend(first.getId(), second.getId());
+        storage.saveSnapshot(dir.resolve("users.snapshot"));
+
+        InMemoryUserStorage restored = new InMemoryUserStorage();
+        assertThat(restored.loadSnapshot(dir.resolve("users.snapshot"))).isTrue();
+
+        assertThat(restored.getAllUsers()).containsExactlyInAnyOrderElementsOf(storage.getAllUsers());
+        assertThat(restored.getFriends(first.getId())).extracting(User::getId).containsExactly(second.getId());
+    }
+
+    @Test
+    void missingSnapshotIsNotLoaded() throws Exception {
+        assertThat(new InMemoryUserStorage().loadSnapshot(dir.resolve("users.snapshot"))).isFalse();
+    }
+
+    @Test
+    void foreignFileIsRejected() throws Exception {
+        Files.write(dir.resolve("films.snapshot"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThatThrownBy(() -> new InMemoryFilmStorage(event -> { }).loadSnapshot(dir.resolve("films.snapshot")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.FilmChangeEvent;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.OffHeapFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapFilmStorageTests {
+    private final List<Object> events = new ArrayList<>();
+    private final OffHeapFilmStorage storage = new OffHeapFilmStorage(4096, events::add);
+
+    @Test
+    void storesAndMaterializesFilms() {
+        Film film = storage.addFilm(film("Фильм", "Описание", List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"))));
+        Film empty = storage.addFilm(new Film(null, "Без описания", null, null, 60, new HashSet<>(), null,
+                new ArrayList<>()));
+
+        Film found = storage.getFilmById(film.getId()).orElseThrow();
+        assertThat(found).isEqualTo(film);
+        assertThat(found.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+        assertThat(found.getMpa()).isEqualTo(new Mpa(1L, "G"));
+        assertThat(storage.getFilmById(empty.getId()).orElseThrow()).isEqualTo(empty);
+        assertThat(storage.getAllFilms()).extracting(Film::getId).containsExactly(film.getId(), empty.getId());
+        assertThat(storage.getFilmById(99L)).isEmpty();
+    }
+
+    @Test
+    void updatesAndDeletesFilms() {
+        Film film = storage.addFilm(film("Фильм", null, List.of()));
+        film.setName("Новое название");
+        film.setGenres(new ArrayList<>(List.of(new Genre(3L, "Мультфильм"))));
+
+        storage.updateFilm(film);
+        assertThat(storage.getFilmById(film.getId()).orElseThrow().getName()).isEqualTo("Новое название");
+
+        storage.deleteFilm(film.getId());
+        assertThat(storage.getFilmById(film.getId())).isEmpty();
+        assertThatThrownBy(() -> storage.deleteFilm(film.getId())).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void likesGrowBeyondInitialBlockAndRankPopularFilms() {
+        Film first = storage.addFilm(film("Первый", null, List.of()));
+        Film second = storage.addFilm(film("Второй", null, List.of()));
+        Film third = storage.addFilm(film("Третий", null, List.of()));
+        for (long user = 1; user <= 20; user++) {
+            storage.addLike(second.getId(), user);
+        }
+        storage.addLike(third.getId(), 1L);
+        storage.addLike(third.getId(), 1L);
+        storage.addLike(first.getId(), 5L);
+        storage.addLike(first.getId(), 6L);
+        storage.removeLike(first.getId(), 5L);
+
+        assertThat(storage.getFilmById(second.getId()).orElseThrow().getLikes()).hasSize(20);
+        assertThat(storage.getFilmById(first.getId()).orElseThrow().getLikes()).isEqualTo(Set.of(6L));
+        assertThat(storage.getPopularFilms(2)).extracting(Film::getId).containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    void compactionKeepsFilmsReadable() {
+        Film kept = storage.addFilm(film("Остаётся", "Описание", List.of(new Genre(1L, "Комедия"))));
+        storage.addLike(kept.getId(), 42L);
+        for (int i = 0; i < 500; i++) {
+            Film temporary = storage.addFilm(film("Временный " + i, "x".repeat(100), List.of()));
+            storage.deleteFilm(temporary.getId());
+        }
+
+        assertThat(storage.offHeapBytes()).isLessThan(3 * 4096);
+        Film found = storage.getFilmById(kept.getId()).orElseThrow();
+        assertThat(found.getName()).isEqualTo("Остаётся");
+        assertThat(found.getLikes()).containsExactly(42L);
+        storage.addLike(kept.getId(), 43L);
+        assertThat(storage.getFilmById(kept.getId()).orElseThrow().getLikes()).containsExactlyInAnyOrder(42L, 43L);
+    }
+
+    @Test
+    void publishesChanges() {
+        Film film = storage.addFilm(film("Фильм", null, List.of()));
+        long id = film.getId();
+        storage.updateFilm(film);
+        storage.addLike(id, 1L);
+        storage.addLike(id, 1L);
+        storage.removeLike(id, 1L);
+        storage.removeLike(id, 1L);
+        storage.deleteFilm(id);
+
+        assertThat(events).containsExactly(
+                FilmChangeEvent.of(FilmChangeEvent.Type.CREATED, id),
+                FilmChangeEvent.of(FilmChangeEvent.Type.UPDATED, id),
+                new FilmChangeEvent(FilmChangeEvent.Type.LIKE_ADDED, id, 1L),
+                new FilmChangeEvent(FilmChangeEvent.Type.LIKE_REMOVED, id, 1L),
+                FilmChangeEvent.of(FilmChangeEvent.Type.DELETED, id));
+    }
+
+    @Test
+    void dictionariesAreKeyedById() {
+        for (int i = 0; i < 300; i++) {
+            Film film = film("Фильм " + i, null, List.of(new Genre(1L, i % 2 == 0 ? "Комедия" : null)));
+            film.setMpa(new Mpa(1L, i % 2 == 0 ? "G" : null));
+            storage.addFilm(film);
+        }
+
+        assertThat(storage.getAllFilms()).allSatisfy(film -> {
+            assertThat(film.getGenres()).containsExactly(new Genre(1L, "Комедия"));
+            assertThat(film.getMpa()).isEqualTo(new Mpa(1L, "G"));
+        });
+    }
+
+    @Test
+    void rejectedUpdateKeepsPreviousFilm() {
+        Film film = storage.addFilm(film("Фильм", "Описание", List.of(new Genre(1L, "Комедия"))));
+        storage.addLike(film.getId(), 7L);
+        List<Genre> genres = new ArrayList<>();
+        for (long id = 1; id <= 256; id++) {
+            genres.add(new Genre(id, "Жанр " + id));
+        }
+        Film update = film("Новое название", null, genres);
+        update.setId(film.getId());
+        events.clear();
+
+        assertThatThrownBy(() -> storage.updateFilm(update)).isInstanceOf(IllegalArgumentException.class);
+
+        Film found = storage.getFilmById(film.getId()).orElseThrow();
+        assertThat(found.getName()).isEqualTo("Фильм");
+        assertThat(found.getGenres()).extracting(Genre::getName).containsExactly("Комедия");
+        assertThat(found.getLikes()).containsExactly(7L);
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void missingIdIsNotFound() {
+        Film film = film("Без id", null, List.of());
+
+        assertThatThrownBy(() -> storage.updateFilm(film)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> storage.addLike(null, 1L)).isInstanceOf(NotFoundException.class);
+        assertThat(storage.getFilmById(null)).isEmpty();
+    }
+
+    private static Film film(String name, String description, List<Genre> genres) {
+        return new Film(null, name, description, LocalDate.of(2000, 1, 1), 90, new HashSet<>(), new Mpa(1L, "G"),
+                new ArrayList<>(genres));
+    }
+}
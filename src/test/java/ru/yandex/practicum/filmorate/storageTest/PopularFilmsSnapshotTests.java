@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import ru.yandex.practicum.filmorate.event.PopularFilmsRefreshedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularFilmsSnapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest(properties = {
+        "filmorate.popular.snapshot.enabled=true",
+        "filmorate.popular.snapshot.rebuild-after-likes=2"
+})
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ComponentScan("ru.yandex.practicum.filmorate.storage")
+@RecordApplicationEvents
+class PopularFilmsSnapshotTests {
+    private final FilmDbStorage filmStorage;
+    private final PopularFilmsSnapshot snapshot;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Long> filmIds = new ArrayList<>();
+    @Autowired
+    private ApplicationEvents events;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+        for (long id = 1; id <= 2; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                    id, "user" + id + "@example.com", "user" + id, "User " + id, LocalDate.of(1990, 1, 1));
+        }
+        for (int i = 1; i <= 3; i++) {
+            filmIds.add(filmStorage.addFilm(new Film(null, "Film " + i, "Description", LocalDate.of(2020, 1, 1),
+                    100, null, new Mpa(1L, "G"), new ArrayList<>())).getId());
+        }
+    }
+
+    @Test
+    void testRebuildOrdersByLikesThenId() {
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, 1), (?, 2), (?, 1)",
+                filmIds.get(2), filmIds.get(2), filmIds.get(1));
+
+        snapshot.rebuild();
+
+        assertThat(snapshot.current().filmIds())
+                .containsExactly(filmIds.get(2), filmIds.get(1), filmIds.get(0));
+    }
+
+    @Test
+    void testRefreshIsPublishedOnlyWhenRankingChanges() {
+        snapshot.rebuild();
+        events.clear();
+
+        snapshot.rebuild();
+        assertThat(events.stream(PopularFilmsRefreshedEvent.class)).isEmpty();
+
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, 1)", filmIds.get(2));
+        snapshot.rebuild();
+        assertThat(events.stream(PopularFilmsRefreshedEvent.class)).hasSize(1);
+    }
+
+    @Test
+    void testLikesTriggerRebuild() {
+        snapshot.rebuild();
+        long builtAt = snapshot.current().builtAt();
+
+        filmStorage.addLike(filmIds.get(2), 1L);
+        assertThat(snapshot.current().builtAt()).isEqualTo(builtAt);
+
+        filmStorage.addLike(filmIds.get(2), 2L);
+        assertThat(snapshot.current().filmIds()[0]).isEqualTo(filmIds.get(2));
+    }
+}
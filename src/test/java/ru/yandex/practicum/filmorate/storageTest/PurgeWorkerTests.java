@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.PurgeWorker;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest(properties = "filmorate.purge.enabled=true")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ComponentScan("ru.yandex.practicum.filmorate.storage")
+class PurgeWorkerTests {
+    private final UserDbStorage userStorage;
+    private final FilmDbStorage filmStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<Long> users = new ArrayList<>();
+    private PurgeWorker purgeWorker;
+    private Film film;
+
+    @BeforeEach
+    void setUp() {
+        purgeWorker = new PurgeWorker(jdbcTemplate, new TransactionTemplate(transactionManager), eventPublisher, 2);
+        for (int i = 0; i < 5; i++) {
+            users.add(userStorage.addUser(new User(null, null, "user" + i + "@example.com", "user" + i, "User" + i,
+                    LocalDate.of(1990, 1, 1))).getId());
+        }
+        film = filmStorage.addFilm(new Film(null, "Film", "Description", LocalDate.of(2020, 1, 1), 120, null,
+                new Mpa(1L, "G"), new ArrayList<>()));
+        for (Long user : users) {
+            filmStorage.addLike(film.getId(), user);
+        }
+        // users 1, 3 and 4 follow user 0, user 0 follows users 1 and 2
+        for (int follower : new int[]{1, 3, 4}) {
+            userStorage.addFriend(users.get(follower), users.get(0));
+        }
+        userStorage.addFriend(users.get(0), users.get(1));
+        userStorage.addFriend(users.get(0), users.get(2));
+    }
+
+    @Test
+    void testDeletedUserIsHiddenAtOnceAndPurgedInChunks() {
+        Long deleted = users.get(0);
+        PurgeWorker.Job job = purgeWorker.deleteUser(deleted);
+
+        assertThat(job.rowsTotal()).isEqualTo(6);
+        assertThat(userStorage.getUserById(deleted)).isEmpty();
+        assertThat(userStorage.getFriends(users.get(1))).isEmpty();
+        assertThat(userStorage.getAllUsers()).hasSize(4);
+        assertThatThrownBy(() -> purgeWorker.deleteUser(deleted)).isInstanceOf(NotFoundException.class);
+        assertThat(filmStorage.getFilmById(film.getId()).orElseThrow().getLikes()).doesNotContain(deleted);
+        assertThat(filmStorage.getPopularFilms(1)).singleElement().satisfies(f ->
+                assertThat(f.getLikes()).hasSize(4));
+        for (int follower : new int[]{1, 3, 4}) {
+            assertThat(userStorage.getFriendCount(users.get(follower))).isZero();
+        }
+
+        int chunks = 0;
+        while (purgeWorker.purgeChunk()) {
+            chunks++;
+        }
+
+        assertThat(chunks).isEqualTo(5);
+        assertThat(purgeWorker.getJob(job.id())).hasValueSatisfying(finished -> {
+            assertThat(finished.rowsPurged()).isEqualTo(6);
+            assertThat(finished.finishedAt()).isNotNull();
+        });
+        assertThat(purgeWorker.getUnfinishedJobs()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, deleted))
+                .isZero();
+        for (int follower : new int[]{1, 3, 4}) {
+            assertThat(userStorage.getFriendCount(users.get(follower))).isZero();
+        }
+        assertThat(filmStorage.getFilmById(film.getId())).hasValueSatisfying(f ->
+                assertThat(f.getLikes()).doesNotContain(deleted).hasSize(4));
+    }
+
+    @Test
+    void testDeletedFilmIsHiddenAtOnceAndPurgedInChunks() {
+        PurgeWorker.Job job = purgeWorker.deleteFilm(film.getId());
+
+        assertThat(filmStorage.getFilmById(film.getId())).isEmpty();
+        assertThat(filmStorage.getPopularFilms(10)).isEmpty();
+        assertThat(filmStorage.getFilmsByIds(List.of(film.getId()))).isEmpty();
+
+        while (purgeWorker.purgeChunk()) {
+            assertThat(filmStorage.getAllFilms()).isEmpty();
+        }
+
+        assertThat(purgeWorker.getJob(job.id())).hasValueSatisfying(finished ->
+                assertThat(finished.rowsPurged()).isEqualTo(5));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class)).isZero();
+    }
+}
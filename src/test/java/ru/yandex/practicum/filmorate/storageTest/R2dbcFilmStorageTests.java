@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.R2dbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:r2dbc-storage;DB_CLOSE_DELAY=-1"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class R2dbcFilmStorageTests {
+    private static final ConnectionFactory CONNECTION_FACTORY = ConnectionFactories.get(
+            ConnectionFactoryOptions.parse("r2dbc:h2:mem:///r2dbc-storage").mutate()
+                    .option(ConnectionFactoryOptions.USER, "sa")
+                    .option(ConnectionFactoryOptions.PASSWORD, "password")
+                    .build());
+
+    private final UserDbStorage userStorage;
+    private final R2dbcFilmStorage filmStorage = new R2dbcFilmStorage(DatabaseClient.create(CONNECTION_FACTORY),
+            TransactionalOperator.create(new R2dbcTransactionManager(CONNECTION_FACTORY)), 2,
+            Schedulers.boundedElastic(), false);
+
+    @Test
+    void testAddUpdateAndLikes() {
+        User user = addUser("r2dbc-likes");
+        Film added = filmStorage.addFilm(film("Reactive", List.of(new Genre(2L, null), new Genre(1L, null))))
+                .block();
+        assertThat(added.getMpa().getName()).isEqualTo("PG");
+        assertThat(added.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+
+        filmStorage.addLike(added.getId(), user.getId()).block();
+        assertThat(filmStorage.getFilmById(added.getId()).block().getLikes()).containsExactly(user.getId());
+
+        Film changed = film("Reactive 2", List.of(new Genre(3L, null)));
+        changed.setId(added.getId());
+        changed.setLikes(Set.of());
+        Film updated = filmStorage.updateFilm(changed).block();
+        assertThat(updated.getName()).isEqualTo("Reactive 2");
+        assertThat(updated.getGenres()).extracting(Genre::getId).containsExactly(3L);
+        assertThat(updated.getLikes()).isEmpty();
+
+        changed.setId(-1L);
+        assertThatThrownBy(() -> filmStorage.updateFilm(changed).block()).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testAllFilmsAreStreamedPageByPage() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(filmStorage.addFilm(film("Paged" + i, List.of(new Genre(1L, null)))).block().getId());
+        }
+
+        List<Film> films = filmStorage.getAllFilms().collectList().block();
+        assertThat(films).extracting(Film::getId).isSorted().containsAll(ids);
+        assertThat(films).filteredOn(film -> ids.contains(film.getId()))
+                .allSatisfy(film -> assertThat(film.getGenres()).extracting(Genre::getId).containsExactly(1L));
+        assertThat(filmStorage.getAllFilms().take(3).collectList().block()).hasSize(3);
+    }
+
+    @Test
+    void testPopularFilmsAndDelete() {
+        User first = addUser("r2dbc-popular1");
+        User second = addUser("r2dbc-popular2");
+        Film liked = filmStorage.addFilm(film("Liked", List.of())).block();
+        Film mostLiked = filmStorage.addFilm(film("Most liked", List.of())).block();
+        filmStorage.addLike(liked.getId(), first.getId()).block();
+        filmStorage.addLike(mostLiked.getId(), first.getId()).block();
+        filmStorage.addLike(mostLiked.getId(), second.getId()).block();
+
+        assertThat(filmStorage.getPopularFilms(2).collectList().block()).extracting(Film::getId)
+                .containsExactly(mostLiked.getId(), liked.getId());
+
+        filmStorage.deleteFilm(mostLiked.getId()).block();
+        assertThat(filmStorage.getFilmById(mostLiked.getId()).blockOptional()).isEmpty();
+        assertThat(filmStorage.getPopularFilms(1).collectList().block()).extracting(Film::getId)
+                .containsExactly(liked.getId());
+        assertThatThrownBy(() -> filmStorage.deleteFilm(mostLiked.getId()).block())
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testReferenceLookups() {
+        User user = addUser("r2dbc-lookups");
+
+        assertThat(filmStorage.mpaExists(1).block()).isTrue();
+        assertThat(filmStorage.mpaExists(99).block()).isFalse();
+        assertThat(filmStorage.findGenreIds(List.of(1L, 77L, 3L)).collectList().block())
+                .containsExactlyInAnyOrder(1L, 3L);
+        assertThat(filmStorage.userExists(user.getId()).block()).isTrue();
+        assertThat(filmStorage.userExists(-1).block()).isFalse();
+    }
+
+    private User addUser(String login) {
+        return userStorage.addUser(new User(null, null, login + "@example.com", login, login,
+                LocalDate.of(1990, 1, 1)));
+    }
+
+    private static Film film(String name, List<Genre> genres) {
+        return new Film(null, name, "Description", LocalDate.of(2000, 1, 1), 100, null, new Mpa(2L, null),
+                new ArrayList<>(genres));
+    }
+}
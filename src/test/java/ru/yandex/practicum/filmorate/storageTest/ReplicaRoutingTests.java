@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.config.ReplicationStandIn;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "filmorate.datasource.routing.enabled=true",
+        "filmorate.datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "filmorate.datasource.routing.replicas[0].username=sa",
+        "filmorate.datasource.routing.stickiness=PT5S",
+        "filmorate.datasource.routing.stand-in.enabled=true",
+        "filmorate.datasource.routing.stand-in.interval=PT1H"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReplicaRoutingTests {
+    private final UserDbStorage userStorage;
+    private final FilmDbStorage filmStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReplicationStandIn replicationStandIn;
+    private final MutableClock clock;
+
+    @TestConfiguration
+    static class ClockConfig {
+
+        @Bean
+        MutableClock clock() {
+            return new MutableClock();
+        }
+    }
+
+    @Test
+    void testReadsGoToReplicaUntilReplicated() {
+        User user = userStorage.addUser(new User(null, null, "replica1@example.com", "replica1", "Replica",
+                LocalDate.of(1990, 1, 1)));
+
+        assertThat(userStorage.getAllUsers()).extracting(User::getId).doesNotContain(user.getId());
+
+        replicationStandIn.sync();
+
+        assertThat(userStorage.getAllUsers()).extracting(User::getId).contains(user.getId());
+    }
+
+    @Test
+    void testReadYourWritesStickinessExpires() {
+        User user = userStorage.addUser(new User(null, null, "replica2@example.com", "replica2", "Replica",
+                LocalDate.of(1990, 1, 1)));
+
+        assertThat(userStorage.getUserById(user.getId())).isPresent();
+
+        clock.advance(Duration.ofSeconds(4));
+        assertThat(userStorage.getUserById(user.getId())).isPresent();
+        clock.advance(Duration.ofSeconds(1));
+
+        assertThat(userStorage.getUserById(user.getId())).isEmpty();
+    }
+
+    @Test
+    void testFilmListsAreReadFromPrimaryAfterFilmWrite() {
+        Film film = filmStorage.addFilm(new Film(null, "Replica film", "Description", LocalDate.of(2000, 1, 1), 100,
+                null, new Mpa(1L, "G"), null));
+
+        assertThat(filmStorage.getAllFilms()).extracting(Film::getId).contains(film.getId());
+        assertThat(filmStorage.getPopularFilms(1000)).extracting(Film::getId).contains(film.getId());
+    }
+
+    @Test
+    void testCommonFriendsStickToEveryUser() {
+        User first = addUser("replica3");
+        User second = addUser("replica4");
+        User friend = addUser("replica5");
+        userStorage.addFriend(first.getId(), friend.getId());
+        replicationStandIn.sync();
+        clock.advance(Duration.ofSeconds(5));
+
+        userStorage.addFriend(second.getId(), friend.getId());
+
+        assertThat(userStorage.getCommonFriends(List.of(first.getId(), second.getId())))
+                .extracting(User::getId).containsExactly(friend.getId());
+    }
+
+    @Test
+    void testFilmWriteValidatesGenresOnPrimary() {
+        jdbcTemplate.update("MERGE INTO genres (id, name) KEY (id) VALUES (99, 'Replica genre')");
+        Genre genre = new Genre(99L, "Replica genre");
+
+        Film film = filmStorage.addFilm(new Film(null, "Replica genre film", "Description", LocalDate.of(2000, 1, 1),
+                100, null, new Mpa(1L, "G"), List.of(genre)));
+
+        assertThat(film.getGenres()).extracting(Genre::getId).containsExactly(genre.getId());
+    }
+
+    static class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private User addUser(String login) {
+        return userStorage.addUser(new User(null, null, login + "@example.com", login, "Replica",
+                LocalDate.of(1990, 1, 1)));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.config.ShardingConfig;
+import ru.yandex.practicum.filmorate.config.ShardingProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-main;DB_CLOSE_DELAY=-1",
+        "filmorate.storage.films=shardedFilmStorage",
+        "filmorate.sharding.enabled=true",
+        "filmorate.sharding.shards[0].url=jdbc:h2:file:./target/test-shards/${random.uuid}/shard-0",
+        "filmorate.sharding.shards[1].url=jdbc:h2:file:./target/test-shards/${random.uuid}/shard-1",
+        "filmorate.sharding.shards[2].url=jdbc:h2:file:./target/test-shards/${random.uuid}/shard-2"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ShardedFilmStorageTests {
+    private final ShardedFilmStorage filmStorage;
+    private final FilmService filmService;
+    private final UserDbStorage userStorage;
+
+    @Test
+    void testFilmsAreSpreadAcrossShards() {
+        Set<Integer> usedShards = new HashSet<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Film film = filmService.addFilm(film("Film" + i, List.of(new Genre(1L, null))));
+            ids.add(film.getId());
+            usedShards.add(filmStorage.shardOf(film.getId()));
+        }
+
+        assertThat(usedShards).hasSize(filmStorage.shardCount());
+        assertThat(filmStorage.getAllFilms()).extracting(Film::getId).containsAll(ids);
+        Film loaded = filmService.getFilmById(ids.get(4));
+        assertThat(loaded.getName()).isEqualTo("Film4");
+        assertThat(loaded.getGenres()).extracting(Genre::getName).containsExactly("Комедия");
+    }
+
+    @Test
+    void testPopularFilmsAreMergedAcrossShards() {
+        User user1 = userStorage.addUser(new User(null, null, "shard1@example.com", "shard1", "U1",
+                LocalDate.of(1990, 1, 1)));
+        User user2 = userStorage.addUser(new User(null, null, "shard2@example.com", "shard2", "U2",
+                LocalDate.of(1990, 1, 1)));
+        Film first = filmService.addFilm(film("First", List.of()));
+        Film second = filmService.addFilm(film("Second", List.of()));
+        Film third = filmService.addFilm(film("Third", List.of()));
+        filmService.addLike(third.getId(), user1.getId());
+        filmService.addLike(third.getId(), user2.getId());
+        filmService.addLike(second.getId(), user1.getId());
+
+        List<Film> popular = filmService.getPopularFilms(2);
+
+        assertThat(filmStorage.shardOf(second.getId())).isNotEqualTo(filmStorage.shardOf(third.getId()));
+        assertThat(popular).extracting(Film::getId).containsExactly(third.getId(), second.getId());
+
+        filmService.removeLike(third.getId(), user1.getId());
+        filmService.removeLike(third.getId(), user2.getId());
+        filmStorage.deleteFilm(first.getId());
+
+        assertThat(filmService.getPopularFilms(1)).extracting(Film::getId).containsExactly(second.getId());
+        assertThat(filmStorage.getFilmById(first.getId())).isEmpty();
+    }
+
+    @Test
+    void testLikesOfDeletedUserAreRemovedFromShards() {
+        User liker = userStorage.addUser(new User(null, null, "shard-gone@example.com", "shardgone", "Gone",
+                LocalDate.of(1990, 1, 1)));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < filmStorage.shardCount(); i++) {
+            Film film = filmService.addFilm(film("Liked" + i, List.of()));
+            filmService.addLike(film.getId(), liker.getId());
+            ids.add(film.getId());
+        }
+
+        userStorage.deleteUser(liker.getId());
+
+        assertThat(filmStorage.getFilmsByIds(ids)).allSatisfy(film -> assertThat(film.getLikes()).isEmpty());
+        assertThat(filmService.getPopularFilms(1000)).allSatisfy(film ->
+                assertThat(film.getLikes()).doesNotContain(liker.getId()));
+    }
+
+    @Test
+    void testChangedShardListFailsFast() {
+        String dir = "./target/test-shards/" + UUID.randomUUID();
+        ShardingConfig config = new ShardingConfig();
+        config.shardDataSources(shardingProperties(dir + "/shard-0", dir + "/shard-1")).close();
+
+        assertThatThrownBy(() -> config.shardDataSources(shardingProperties(dir + "/shard-0")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("shard 0 of 2");
+    }
+
+    private static ShardingProperties shardingProperties(String... paths) {
+        ShardingProperties properties = new ShardingProperties();
+        for (String path : paths) {
+            ShardingProperties.Shard shard = new ShardingProperties.Shard();
+            shard.setUrl("jdbc:h2:file:" + path);
+            shard.setUsername("sa");
+            properties.getShards().add(shard);
+        }
+        return properties;
+    }
+
+    private static Film film(String name, List<Genre> genres) {
+        return new Film(null, name, "Description", LocalDate.of(2020, 1, 1), 100, null,
+                new Mpa(1L, null), new ArrayList<>(genres));
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+    private final SingleFlight<Integer, String> flight = new SingleFlight<>();
+
+    @Test
+    void testConcurrentCallsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> flight.run(10, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "popular";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("popular");
+            }
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailureIsNotCached() {
+        assertThatThrownBy(() -> flight.run(1, () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(flight.run(1, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void testRunAllJoinsKeysAlreadyInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Integer>> batches = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<String> single = executor.submit(() -> flight.run(1, () -> {
+                started.countDown();
+                await(release);
+                return "one";
+            }));
+            await(started);
+            Future<Map<Integer, String>> all = executor.submit(
+                    () -> flight.runAll(List.of(1, 2, 3, 2), keys -> {
+                        batches.add(keys);
+                        release.countDown();
+                        return Map.of(2, "two", 3, "three");
+                    }));
+
+            assertThat(all.get(5, TimeUnit.SECONDS)).containsOnly(Map.entry(1, "one"), Map.entry(2, "two"),
+                    Map.entry(3, "three"));
+            assertThat(single.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+        }
+
+        assertThat(batches).containsExactly(List.of(2, 3));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -58,6 +58,18 @@ class UserDbStorageTests {
                 .hasValueSatisfying(u -> assertThat(u.getId()).isEqualTo(savedUser.getId()));
     }
 
+    @Test
+    void testGetUsersByIdsKeepsRequestOrder() {
+        User first = userStorage.addUser(
+                new User(null, null, "user1@example.com", "user1", "User1", LocalDate.of(1990, 1, 1)));
+        User second = userStorage.addUser(
+                new User(null, null, "user2@example.com", "user2", "User2", LocalDate.of(1990, 2, 2)));
+
+        List<User> users = userStorage.getUsersByIds(List.of(second.getId(), 999L, first.getId(), second.getId()));
+
+        assertThat(users).extracting(User::getId).containsExactly(second.getId(), first.getId());
+    }
+
     @Test
     void testGetAllUsers() {
         User user1 = new User(null, null, "user1@example.com", "user1", "User1", LocalDate.of(1990, 1, 1));
@@ -138,4 +150,60 @@ class UserDbStorageTests {
 
         assertThat(userOptional).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFriendCountFollowsFriendships() {
+        User user1 = userStorage.addUser(new User(null, null, "user1@example.com", "user1", "User1", LocalDate.of(1990, 1, 1)));
+        User user2 = userStorage.addUser(new User(null, null, "user2@example.com", "user2", "User2", LocalDate.of(1990, 2, 2)));
+        User user3 = userStorage.addUser(new User(null, null, "user3@example.com", "user3", "User3", LocalDate.of(1990, 3, 3)));
+
+        userStorage.addFriend(user1.getId(), user2.getId());
+        userStorage.addFriend(user1.getId(), user3.getId());
+        userStorage.removeFriend(user1.getId(), user2.getId());
+        userStorage.removeFriend(user1.getId(), user2.getId());
+        assertThat(userStorage.getFriendCount(user1.getId())).isEqualTo(1);
+
+        userStorage.deleteUser(user3.getId());
+        assertThat(userStorage.getFriendCount(user1.getId())).isZero();
+    }
+
+    @Test
+    void testFriendsPages() {
+        User user = userStorage.addUser(new User(null, null, "user@example.com", "user", "User", LocalDate.of(1990, 1, 1)));
+        for (int i = 0; i < 5; i++) {
+            User friend = userStorage.addUser(new User(null, null, "friend" + i + "@example.com", "friend" + i,
+                    "Friend" + i, LocalDate.of(1990, 1, 1)));
+            userStorage.addFriend(user.getId(), friend.getId());
+        }
+
+        List<User> first = userStorage.getFriends(user.getId(), null, 2);
+        List<User> second = userStorage.getFriends(user.getId(), first.get(1).getId(), 2);
+        List<User> last = userStorage.getFriends(user.getId(), second.get(1).getId(), 2);
+
+        assertThat(first).extracting(User::getId).isSorted().hasSize(2);
+        assertThat(second.get(0).getId()).isGreaterThan(first.get(1).getId());
+        assertThat(last).hasSize(1);
+    }
+
+    @Test
+    void testCommonFriendsOfSeveralUsers() {
+        List<User> users = new java.util.ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            users.add(userStorage.addUser(new User(null, null, "user" + i + "@example.com", "user" + i, "User" + i,
+                    LocalDate.of(1990, 1, 1))));
+        }
+        long a = users.get(0).getId();
+        long b = users.get(1).getId();
+        long c = users.get(2).getId();
+        for (int i = 3; i < 6; i++) {
+            userStorage.addFriend(a, users.get(i).getId());
+            userStorage.addFriend(b, users.get(i).getId());
+        }
+        userStorage.addFriend(c, users.get(5).getId());
+        userStorage.addFriend(c, users.get(4).getId());
+
+        assertThat(userStorage.getCommonFriends(List.of(a, b, c))).extracting(User::getId)
+                .containsExactly(users.get(4).getId(), users.get(5).getId());
+        assertThat(userStorage.getCommonFriends(List.of(a, b))).hasSize(3);
+    }
+}